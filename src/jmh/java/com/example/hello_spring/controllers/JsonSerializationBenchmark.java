@@ -0,0 +1,84 @@
+package com.example.hello_spring.controllers;
+
+import com.example.hello_spring.cron_jobs.PingService;
+import com.example.hello_spring.entities.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of the response types with the same ObjectMapper setup Spring MVC uses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private HelloController.HealthResponse health;
+    private PingService.PingStatus pingStatus;
+    private User user;
+    private List<User> users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        List<PingService.PingResult> history = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            history.add(new PingService.PingResult(1_700_000_000_000L + i, 120.5 + i, true, "SUCCESS - HTTP 200"));
+        }
+        PingService.TargetStatus target = new PingService.TargetStatus("https://example.com/health", 300, 42, 1,
+            "SUCCESS - HTTP 200", "2025-09-14 10:30:00",
+            new PingService.LatencySummary(42, 130.2, 120.0, 180.0, 240.0, 310.0),
+            "CLOSED", 0, "2025-09-14 10:35:00", history);
+        pingStatus = new PingService.PingStatus(true, "https://example.com/health", 5, 42,
+            "SUCCESS - HTTP 200", "2025-09-14 10:30:00", List.of(target));
+        health = new HelloController.HealthResponse("UP", "Hello Spring Boot is running",
+            System.currentTimeMillis(), pingStatus);
+
+        user = new User("benchmark_user", "benchmark_user@example.com");
+        users = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            users.add(new User("user_" + i, "user_" + i + "@example.com"));
+        }
+    }
+
+    @Benchmark
+    public byte[] healthResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(health);
+    }
+
+    @Benchmark
+    public byte[] pingStatus() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(pingStatus);
+    }
+
+    @Benchmark
+    public byte[] user() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] userPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new HelloController.UserPage(users, 20, "MjA"));
+    }
+}
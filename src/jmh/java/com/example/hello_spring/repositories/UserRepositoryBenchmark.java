@@ -0,0 +1,107 @@
+package com.example.hello_spring.repositories;
+
+import com.example.hello_spring.HelloSpringApplication;
+import com.example.hello_spring.entities.User;
+import com.example.hello_spring.services.UserLookupService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserRepository lookups against the in-memory H2 database of the test profile, next to the
+ * same lookups through the cached UserLookupService. Hibernate's second-level and query caches
+ * are off, so the repository benchmarks measure the database rather than a cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserRepositoryBenchmark {
+
+    private static final int USER_COUNT = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private UserLookupService userLookupService;
+    private String[] usernames;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        // Command line arguments override application.properties, which activates the dev profile
+        context = new SpringApplicationBuilder(HelloSpringApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.profiles.active=test", "--logging.level.root=WARN", "--users.l2-cache.enabled=false");
+        userRepository = context.getBean(UserRepository.class);
+        userLookupService = context.getBean(UserLookupService.class);
+
+        usernames = new String[USER_COUNT];
+        List<User> batch = new ArrayList<>(1000);
+        for (int i = 0; i < USER_COUNT; i++) {
+            usernames[i] = "bench_" + i;
+            batch.add(new User(usernames[i], usernames[i] + "@example.com"));
+            if (batch.size() == 1000) {
+                userRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private String randomUsername() {
+        return usernames[ThreadLocalRandom.current().nextInt(USER_COUNT)];
+    }
+
+    @Benchmark
+    public Optional<User> findByUsername() {
+        return userRepository.findByUsername(randomUsername());
+    }
+
+    @Benchmark
+    public Optional<User> findByUsernameCached() {
+        return userLookupService.findByUsername(randomUsername());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<User> findByUsernameContended() {
+        return userRepository.findByUsername(randomUsername());
+    }
+
+    @Benchmark
+    public boolean existsByUsername() {
+        return userRepository.existsByUsername(randomUsername());
+    }
+
+    @Benchmark
+    public List<User> keysetPage() {
+        long afterId = ThreadLocalRandom.current().nextLong(USER_COUNT);
+        return userRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(20));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.hello_spring.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of CacheService get/put, single-threaded and under contention. Keys are drawn
+ * from a pre-built table so the benchmark measures the cache, not string concatenation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheServiceBenchmark {
+
+    private static final int KEY_COUNT = 1024;
+
+    /** Share of lookups that hit: "hot" keys are all cached, "mixed" has half of them missing. */
+    @Param({"hot", "mixed"})
+    public String workload;
+
+    private CacheService cacheService;
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cacheService = new CacheService();
+        keys = new String[KEY_COUNT];
+        int cached = "hot".equals(workload) ? KEY_COUNT : KEY_COUNT / 2;
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "key-" + i;
+            if (i < cached) {
+                cacheService.put(keys[i], "value-" + i);
+            }
+        }
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(KEY_COUNT)];
+    }
+
+    @Benchmark
+    public Object get() {
+        return cacheService.get(randomKey());
+    }
+
+    @Benchmark
+    public void put() {
+        String key = randomKey();
+        cacheService.put(key, key);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object getContended() {
+        return cacheService.get(randomKey());
+    }
+
+    /** Three readers and one writer on the same key set. */
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public Object readWriteGet() {
+        return cacheService.get(randomKey());
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void readWritePut() {
+        String key = randomKey();
+        cacheService.put(key, key);
+    }
+}
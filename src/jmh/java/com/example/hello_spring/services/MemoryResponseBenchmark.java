@@ -0,0 +1,56 @@
+package com.example.hello_spring.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the /memory response: byte formatting, the immutable response object and a
+ * full telemetry sample (which walks every MXBean).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MemoryResponseBenchmark {
+
+    private JvmTelemetryService telemetryService;
+    private long bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        telemetryService = new JvmTelemetryService();
+        telemetryService.init();
+        bytes = 734_003_200L;
+    }
+
+    @Benchmark
+    public String formatBytes() {
+        return JvmTelemetryService.MemoryResponse.formatBytes(bytes);
+    }
+
+    @Benchmark
+    public JvmTelemetryService.MemoryResponse buildResponse() {
+        return new JvmTelemetryService.MemoryResponse(bytes, bytes / 2, bytes * 2, bytes * 4,
+            0L, List.of(), List.of(), 0, null, List.of());
+    }
+
+    @Benchmark
+    public JvmTelemetryService.MemoryResponse sample() {
+        telemetryService.sample();
+        return telemetryService.getSnapshot();
+    }
+}
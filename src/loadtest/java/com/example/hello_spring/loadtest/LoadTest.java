@@ -0,0 +1,320 @@
+package com.example.hello_spring.loadtest;
+
+import com.example.hello_spring.HelloSpringApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop HTTP load test. Requests are issued on a fixed schedule derived from the target
+ * rate, whether or not earlier responses have arrived, and each latency is measured from the
+ * request's scheduled start time. A stalled server therefore shows up as the queueing delay the
+ * scheduled requests would have seen, rather than as fewer, faster samples (coordinated
+ * omission).
+ *
+ * Run with {@code ./mvnw -Pload-test verify -Dloadtest.args="--rate=500 --budget.p99=100ms"};
+ * the process exits with status 1 when a budget is exceeded.
+ */
+public final class LoadTest {
+
+    /** Endpoints that can appear in the mix. */
+    static final List<String> ENDPOINTS = List.of(
+        "users-post", "users-get", "users-search", "cache-demo", "health", "memory");
+
+    private static final String ALL = "all";
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final LoadTestOptions options;
+    private final HttpClient client;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+    private final String[] endpoints;
+    private final int[] cumulativeWeights;
+    private String baseUrl;
+
+    LoadTest(LoadTestOptions options) {
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(options.timeout)
+            .build();
+        this.endpoints = options.mix.keySet().toArray(new String[0]);
+        this.cumulativeWeights = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            if (!ENDPOINTS.contains(endpoints[i])) {
+                throw new IllegalArgumentException("Unknown endpoint '" + endpoints[i] + "', expected one of " + ENDPOINTS);
+            }
+            total += options.mix.get(endpoints[i]);
+            cumulativeWeights[i] = total;
+            stats.put(endpoints[i], new EndpointStats());
+        }
+        stats.put(ALL, new EndpointStats());
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ConfigurableApplicationContext context = null;
+        boolean passed;
+        try {
+            LoadTest loadTest = new LoadTest(options);
+            if (options.baseUrl != null) {
+                loadTest.baseUrl = options.baseUrl.replaceAll("/+$", "");
+            } else {
+                context = startApplication();
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                loadTest.baseUrl = "http://localhost:" + port;
+            }
+            passed = loadTest.run();
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static ConfigurableApplicationContext startApplication() {
+        // Devtools reads this before the environment exists; a restart would rerun main()
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        // Passed as command line arguments so they override application.properties
+        return new SpringApplicationBuilder(HelloSpringApplication.class).run(
+            "--spring.profiles.active=test",
+            "--server.port=0",
+            "--spring.main.banner-mode=off",
+            "--ping.enabled=false",
+            "--logging.level.root=WARN");
+    }
+
+    /**
+     * Seed, warm up, measure, report and check the budgets.
+     *
+     * @return Whether every budget was met
+     */
+    boolean run() throws IOException, InterruptedException {
+        System.out.printf("Load test against %s: %d req/s for %ds after %ds warm-up, mix %s%n",
+            baseUrl, options.rate, options.duration.toSeconds(), options.warmup.toSeconds(), options.mix);
+        seedUsers();
+        drive();
+        Map<String, Object> report = report();
+        return checkBudgets(report);
+    }
+
+    private void seedUsers() throws IOException, InterruptedException {
+        if (options.seedUsers <= 0) {
+            return;
+        }
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < options.seedUsers; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            String username = seedUsername(i);
+            body.append("{\"username\":\"").append(username)
+                .append("\",\"email\":\"").append(username).append("@example.com\"}");
+        }
+        body.append(']');
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/users/import"))
+            .timeout(Duration.ofMinutes(1))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+            .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("Seeding users failed: HTTP " + response.statusCode() + " " + response.body());
+        }
+    }
+
+    private String seedUsername(int i) {
+        return "lt_" + runId + "_seed_" + i;
+    }
+
+    /**
+     * Issue requests on the open-loop schedule: warm-up first (not recorded), then the
+     * measured run; finally wait for the outstanding responses.
+     */
+    private void drive() throws InterruptedException {
+        Random random = new Random(42);
+        AtomicLong outstanding = new AtomicLong();
+        long warmupNanos = options.warmup.toNanos();
+        long totalNanos = warmupNanos + options.duration.toNanos();
+        long start = System.nanoTime();
+        long measureStart = start + warmupNanos;
+        long maxLagNanos = 0;
+
+        for (long i = 0; ; i++) {
+            long offset = (long) (i * 1e9 / options.rate);
+            if (offset >= totalNanos) {
+                break;
+            }
+            long intended = start + offset;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else {
+                maxLagNanos = Math.max(maxLagNanos, -wait);
+            }
+
+            String endpoint = pick(random);
+            HttpRequest request = request(endpoint, i, random);
+            boolean measured = intended - measureStart >= 0;
+            outstanding.incrementAndGet();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    long latencyNanos = System.nanoTime() - intended;
+                    if (measured) {
+                        boolean success = error == null && response.statusCode() < 400;
+                        stats.get(endpoint).record(latencyNanos, success);
+                        stats.get(ALL).record(latencyNanos, success);
+                    }
+                    outstanding.decrementAndGet();
+                });
+        }
+
+        long deadline = System.nanoTime() + options.timeout.toNanos() + TimeUnit.SECONDS.toNanos(5);
+        while (outstanding.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        if (maxLagNanos > TimeUnit.MILLISECONDS.toNanos(100)) {
+            // Latencies are still corrected, but the generator itself may be the bottleneck
+            System.out.printf("Warning: the load generator fell up to %d ms behind schedule%n",
+                TimeUnit.NANOSECONDS.toMillis(maxLagNanos));
+        }
+    }
+
+    private String pick(Random random) {
+        int r = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (r < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        return endpoints[endpoints.length - 1];
+    }
+
+    private HttpRequest request(String endpoint, long sequence, Random random) {
+        HttpRequest.Builder builder;
+        switch (endpoint) {
+            case "users-post" -> {
+                String username = "lt_" + runId + "_" + sequence;
+                builder = HttpRequest.newBuilder(URI.create(baseUrl + "/users?username=" + encode(username)
+                        + "&email=" + encode(username + "@example.com")))
+                    .POST(HttpRequest.BodyPublishers.noBody());
+            }
+            case "users-get" -> builder = HttpRequest.newBuilder(URI.create(baseUrl + "/users?limit=20")).GET();
+            case "users-search" -> {
+                String username = options.seedUsers > 0 ? seedUsername(random.nextInt(options.seedUsers)) : "nobody";
+                builder = HttpRequest.newBuilder(URI.create(baseUrl + "/users/search?username=" + encode(username))).GET();
+            }
+            case "cache-demo" -> builder = HttpRequest.newBuilder(URI.create(baseUrl + "/cache/demo")).GET();
+            case "health" -> builder = HttpRequest.newBuilder(URI.create(baseUrl + "/health")).GET();
+            case "memory" -> builder = HttpRequest.newBuilder(URI.create(baseUrl + "/memory")).GET();
+            default -> throw new IllegalArgumentException("Unknown endpoint: " + endpoint);
+        }
+        return builder.timeout(options.timeout).build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private Map<String, Object> report() throws IOException {
+        double seconds = options.duration.toNanos() / 1e9;
+        Map<String, Object> endpointsReport = new LinkedHashMap<>();
+        System.out.printf("%n%-14s %9s %8s %10s %10s %10s %10s %10s%n",
+            "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<String, EndpointStats> entry : stats.entrySet()) {
+            Histogram histogram = entry.getValue().histogram;
+            long count = histogram.getTotalCount();
+            long errors = entry.getValue().errors.sum();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("requests", count);
+            row.put("errors", errors);
+            row.put("throughputPerSecond", round(count / seconds));
+            row.put("p50Millis", millis(histogram, 50));
+            row.put("p99Millis", millis(histogram, 99));
+            row.put("p999Millis", millis(histogram, 99.9));
+            row.put("maxMillis", round(histogram.getMaxValue() / 1000.0));
+            endpointsReport.put(entry.getKey(), row);
+            System.out.printf("%-14s %9d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n", entry.getKey(), count, errors,
+                row.get("throughputPerSecond"), row.get("p50Millis"), row.get("p99Millis"),
+                row.get("p999Millis"), row.get("maxMillis"));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("baseUrl", baseUrl);
+        report.put("targetRate", options.rate);
+        report.put("durationSeconds", seconds);
+        report.put("mix", options.mix);
+        report.put("endpoints", endpointsReport);
+
+        File file = new File(options.report);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+        System.out.printf("%nReport written to %s%n", file.getPath());
+        return report;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean checkBudgets(Map<String, Object> report) {
+        Map<String, Object> all = (Map<String, Object>) ((Map<String, Object>) report.get("endpoints")).get(ALL);
+        boolean passed = true;
+        for (Map.Entry<String, Duration> budget : options.budgets.entrySet()) {
+            double actual = (double) all.get(budget.getKey() + "Millis");
+            double limit = budget.getValue().toNanos() / 1e6;
+            boolean ok = actual <= limit;
+            passed &= ok;
+            System.out.printf("%s %s: %.2f ms (budget %.2f ms)%n", ok ? "PASS" : "FAIL", budget.getKey(), actual, limit);
+        }
+        long requests = (long) all.get("requests");
+        double errorRate = requests > 0 ? (long) all.get("errors") / (double) requests : 1.0;
+        boolean ok = errorRate <= options.maxErrorRate;
+        passed &= ok;
+        System.out.printf("%s error rate: %.4f (max %.4f)%n", ok ? "PASS" : "FAIL", errorRate, options.maxErrorRate);
+        return passed;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return round(histogram.getValueAtPercentile(percentile) / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    private static final class EndpointStats {
+        final Histogram histogram = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+        final LongAdder errors = new LongAdder();
+
+        void record(long latencyNanos, boolean success) {
+            histogram.recordValue(Math.min(HIGHEST_MICROS, Math.max(1, latencyNanos / 1000)));
+            if (!success) {
+                errors.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.hello_spring.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line options of the load test, given as {@code --name=value}.
+ *
+ * <pre>
+ * --rate=200                  Target request rate per second (open loop)
+ * --duration=30s              Measured run
+ * --warmup=10s                Unmeasured run before it
+ * --mix=health:20,memory:10   Endpoint weights, see {@link LoadTest#ENDPOINTS}
+ * --seed-users=1000           Users imported before the run for the read endpoints
+ * --timeout=10s               Per-request timeout, counted as an error
+ * --base-url=http://host:8080 Test a running app instead of starting one on H2
+ * --budget.p50=20ms           Latency budgets per percentile (p50, p99, p999),
+ * --budget.p99=200ms          checked against the aggregate of all endpoints
+ * --budget.p999=500ms
+ * --max-error-rate=0.01       Highest tolerated share of failed requests
+ * --report=target/loadtest-report.json
+ * </pre>
+ */
+final class LoadTestOptions {
+
+    static final String DEFAULT_MIX = "users-get:20,users-post:10,users-search:25,cache-demo:20,health:15,memory:10";
+
+    final int rate;
+    final Duration duration;
+    final Duration warmup;
+    final Map<String, Integer> mix;
+    final int seedUsers;
+    final Duration timeout;
+    final String baseUrl;
+    final Map<String, Duration> budgets;
+    final double maxErrorRate;
+    final String report;
+
+    private LoadTestOptions(Map<String, String> values) {
+        this.rate = Integer.parseInt(values.getOrDefault("rate", "200"));
+        this.duration = duration(values.getOrDefault("duration", "30s"));
+        this.warmup = duration(values.getOrDefault("warmup", "10s"));
+        this.mix = parseMix(values.getOrDefault("mix", DEFAULT_MIX));
+        this.seedUsers = Integer.parseInt(values.getOrDefault("seed-users", "1000"));
+        this.timeout = duration(values.getOrDefault("timeout", "10s"));
+        this.baseUrl = values.get("base-url");
+        this.budgets = new LinkedHashMap<>();
+        for (String percentile : new String[] {"p50", "p99", "p999"}) {
+            String budget = values.get("budget." + percentile);
+            if (budget != null) {
+                budgets.put(percentile, duration(budget));
+            }
+        }
+        this.maxErrorRate = Double.parseDouble(values.getOrDefault("max-error-rate", "0.01"));
+        this.report = values.getOrDefault("report", "target/loadtest-report.json");
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return new LoadTestOptions(values);
+    }
+
+    private static Duration duration(String value) {
+        return DurationStyle.detectAndParse(value);
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected endpoint:weight in mix, got: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(parts[0].trim(), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Endpoint mix is empty");
+        }
+        return weights;
+    }
+}
@@ -1,9 +1,41 @@
 package com.example.hello_spring;
 
+import com.example.hello_spring.filters.DbConcurrencyLimitFilter;
+import com.example.hello_spring.filters.RequestMetricsFilter;
+import com.example.hello_spring.services.CacheInvalidationBus;
+import com.example.hello_spring.services.CacheInvalidationTransport;
+import com.example.hello_spring.services.LoopbackInvalidationTransport;
+import com.example.hello_spring.services.RequestMetrics;
+import com.example.hello_spring.services.RequestTimings;
+import com.example.hello_spring.services.UdpInvalidationTransport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.example.hello_spring.entities.User;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.Nullable;
 import org.springframework.web.client.RestTemplate;
 
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+
 /**
  * Configuration class for Spring beans
  */
@@ -17,4 +49,139 @@ public class AppConfig {
     public RestTemplate restTemplate() {
         return new RestTemplate();
     }
-}
\ No newline at end of file
+
+    /**
+     * Defers the beans listed in {@code startup.deferred-beans} until after the application is
+     * ready. Static, as bean factory post-processors must be created before this configuration.
+     */
+    @Bean
+    public static DeferredBeanInitializer deferredBeanInitializer() {
+        return new DeferredBeanInitializer();
+    }
+
+    /**
+     * Cache invalidation bus connecting this node's CacheService to its peers.
+     * Transport "udp" sends datagrams to the configured peers, on localhost unless
+     * {@code cache.invalidation.udp.allow-remote} is set; "loopback" stays in this JVM.
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = "cache.invalidation.enabled", havingValue = "true")
+    public CacheInvalidationBus cacheInvalidationBus(
+            @Value("${cache.invalidation.transport:udp}") String transportType,
+            @Value("${cache.invalidation.udp.bind-address:127.0.0.1}") String bindAddress,
+            @Value("${cache.invalidation.udp.port:47800}") int port,
+            @Value("${cache.invalidation.udp.peers:}") String peers,
+            @Value("${cache.invalidation.udp.allow-remote:false}") boolean allowRemote,
+            @Value("${cache.invalidation.flush-interval:20ms}") Duration flushInterval,
+            @Value("${cache.invalidation.max-batch-size:512}") int maxBatchSize) {
+        CacheInvalidationTransport transport;
+        if ("udp".equalsIgnoreCase(transportType)) {
+            InetSocketAddress bind = new InetSocketAddress(bindAddress, port);
+            List<InetSocketAddress> peerAddresses = UdpInvalidationTransport.parsePeers(peers);
+            UdpInvalidationTransport.checkAddresses(bind, peerAddresses, allowRemote);
+            transport = new UdpInvalidationTransport(bind, peerAddresses);
+        } else if ("loopback".equalsIgnoreCase(transportType)) {
+            transport = new LoopbackInvalidationTransport(new LoopbackInvalidationTransport.Hub());
+        } else {
+            throw new IllegalArgumentException("Unknown cache invalidation transport: " + transportType);
+        }
+        return new CacheInvalidationBus(transport, flushInterval, maxBatchSize);
+    }
+
+    /**
+     * Concurrency cap for database-backed endpoints, active in virtual-thread mode where the
+     * web container no longer bounds it. Defaults to the JDBC pool size (the largest size the
+     * adaptive pool may grow to, when enabled) times the number of requests allowed to queue per
+     * connection.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+    public FilterRegistrationBean<DbConcurrencyLimitFilter> dbConcurrencyLimitFilter(
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int configuredPoolSize,
+            @Value("${db.pool.adaptive.enabled:false}") boolean adaptivePool,
+            @Value("${db.pool.adaptive.max-size:20}") int adaptiveMaxSize,
+            @Value("${db.concurrency-limit.max-concurrent:0}") int maxConcurrent,
+            @Value("${db.concurrency-limit.requests-per-connection:4}") int requestsPerConnection,
+            @Value("${db.concurrency-limit.acquire-timeout:2s}") Duration acquireTimeout) {
+        int poolSize = adaptivePool ? adaptiveMaxSize : configuredPoolSize;
+        int limit = maxConcurrent > 0 ? maxConcurrent
+            : DbConcurrencyLimitFilter.limitFor(poolSize, requestsPerConnection);
+        FilterRegistrationBean<DbConcurrencyLimitFilter> registration =
+            new FilterRegistrationBean<>(new DbConcurrencyLimitFilter(limit, acquireTimeout));
+        registration.addUrlPatterns("/users", "/users/*");
+        return registration;
+    }
+
+    /**
+     * Per-route latency, response size and DB/cache/serialization breakdown for every request.
+     * Ordered first so the time spent queueing in the other filters is included.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "metrics.requests.enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<RequestMetricsFilter> requestMetricsFilter(RequestMetrics requestMetrics) {
+        FilterRegistrationBean<RequestMetricsFilter> registration =
+            new FilterRegistrationBean<>(new RequestMetricsFilter(requestMetrics));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    /**
+     * Spring Boot's JSON converter with the time spent writing response bodies attributed to
+     * the request's serialization phase. Replaces the auto-configured converter.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage)
+                    throws IOException {
+                long start = System.nanoTime();
+                try {
+                    super.writeInternal(object, type, outputMessage);
+                } finally {
+                    RequestTimings.record(RequestTimings.Phase.SERIALIZATION, System.nanoTime() - start);
+                }
+            }
+        };
+    }
+
+    /**
+     * Caffeine-backed JCache manager for Hibernate's second-level cache, with one cache per
+     * region: the User entity, query results, and the update timestamps that invalidate query
+     * results. The timestamps region is neither bounded nor expired, because losing an entry
+     * there could let a stale query result through.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "users.l2-cache.enabled", havingValue = "true", matchIfMissing = true)
+    public CacheManager hibernateCacheManager(
+            @Value("${users.l2-cache.entity.maximum-size:10000}") long entityMaximumSize,
+            @Value("${users.l2-cache.entity.ttl:10m}") Duration entityTtl,
+            @Value("${users.l2-cache.query.maximum-size:10000}") long queryMaximumSize,
+            @Value("${users.l2-cache.query.ttl:5m}") Duration queryTtl) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+            .getCacheManager(URI.create("hello-spring-l2-" + System.identityHashCode(this)), getClass().getClassLoader());
+        cacheManager.createCache(User.class.getName(), regionConfiguration(entityMaximumSize, entityTtl));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+            regionConfiguration(queryMaximumSize, queryTtl));
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+            regionConfiguration(0, Duration.ZERO));
+        return cacheManager;
+    }
+
+    /**
+     * Hand the cache manager above to Hibernate's JCache region factory.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "users.l2-cache.enabled", havingValue = "true", matchIfMissing = true)
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> regionConfiguration(long maximumSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(maximumSize > 0 ? OptionalLong.of(maximumSize) : OptionalLong.empty());
+        configuration.setExpireAfterWrite(ttl.isZero() ? OptionalLong.empty() : OptionalLong.of(ttl.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.hello_spring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Takes non-critical beans (listed in {@code startup.deferred-beans}) off the startup path: they
+ * are marked lazy, so the context refreshes without them, and created right after the application
+ * is ready. Injection points of these beans must be {@code @Lazy}, or they get created anyway.
+ * Scheduled methods on a deferred bean start once it is created.
+ */
+public class DeferredBeanInitializer implements BeanFactoryPostProcessor, EnvironmentAware,
+        ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeferredBeanInitializer.class);
+
+    private String[] beanNames = new String[0];
+    private ConfigurableListableBeanFactory beanFactory;
+    private final Map<String, Double> initMillis = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        // Read directly: @Value is not resolved yet when bean factory post-processors are created
+        this.beanNames = environment.getProperty("startup.deferred-beans", String[].class, new String[0]);
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+        for (String name : beanNames) {
+            if (beanFactory.containsBeanDefinition(name)) {
+                beanFactory.getBeanDefinition(name).setLazyInit(true);
+            } else {
+                logger.warn("Deferred bean '{}' does not exist", name);
+            }
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        for (String name : beanNames) {
+            if (!beanFactory.containsBeanDefinition(name) || initMillis.containsKey(name)) {
+                continue;
+            }
+            long start = System.nanoTime();
+            beanFactory.getBean(name);
+            initMillis.put(name, (System.nanoTime() - start) / 1_000_000.0);
+        }
+        if (!initMillis.isEmpty()) {
+            logger.info("Initialized deferred beans after startup: {}", initMillis);
+        }
+    }
+
+    /**
+     * Creation time of each deferred bean, in milliseconds, once the application is ready.
+     */
+    public Map<String, Double> getInitMillis() {
+        synchronized (initMillis) {
+            return new LinkedHashMap<>(initMillis);
+        }
+    }
+}
@@ -2,14 +2,23 @@ package com.example.hello_spring;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// R2DBC is only used by the reactive profile, which builds its own pool (see ReactiveConfig). A
+// Boot-managed connection factory would also switch off the JDBC DataSource, and excluding it
+// here, unlike in spring.autoconfigure.exclude, cannot be undone by a property override.
+@SpringBootApplication(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
 @EnableScheduling
 public class HelloSpringApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(HelloSpringApplication.class, args);
+		SpringApplication application = new SpringApplication(HelloSpringApplication.class);
+		// Records startup steps (bean instantiation times) for the report at /startup
+		application.setApplicationStartup(new BufferingApplicationStartup(20000));
+		application.run(args);
 	}
 
-}
\ No newline at end of file
+}
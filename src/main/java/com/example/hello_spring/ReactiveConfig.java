@@ -0,0 +1,107 @@
+package com.example.hello_spring;
+
+import com.example.hello_spring.controllers.ReactiveUserHandler;
+import com.example.hello_spring.repositories.ReactiveUserRepository;
+import com.example.hello_spring.services.UserAvailabilityService;
+import com.example.hello_spring.services.UserLookupService;
+import com.example.hello_spring.services.UserVersionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Reactive user API, enabled by the {@code reactive} profile. The servlet application keeps
+ * running as before; next to it a Reactor Netty server on {@code reactive.server.port} serves
+ * {@code GET /users}, {@code GET /users/search} and {@code POST /users} with WebFlux functional
+ * handlers over R2DBC, against the same database. Point the load test's {@code --base-url} at
+ * either port to compare the two stacks.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveConfig.class);
+
+    /**
+     * The R2DBC pool lives inside the repository rather than as a {@code ConnectionFactory} bean:
+     * Spring Boot skips the JDBC DataSource (and with it JPA) when it finds one.
+     */
+    @Bean(destroyMethod = "close")
+    public ReactiveUserRepository reactiveUserRepository(
+            @Value("${reactive.r2dbc.url}") String url,
+            @Value("${reactive.r2dbc.username:}") String username,
+            @Value("${reactive.r2dbc.password:}") String password,
+            @Value("${reactive.r2dbc.pool.initial-size:2}") int initialSize,
+            @Value("${reactive.r2dbc.pool.max-size:10}") int maxSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+            .option(ConnectionFactoryOptions.USER, username)
+            .option(ConnectionFactoryOptions.PASSWORD, password)
+            .build();
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+            .initialSize(initialSize)
+            .maxSize(maxSize)
+            .build());
+        return new ReactiveUserRepository(pool);
+    }
+
+    @Bean
+    public ReactiveUserHandler reactiveUserHandler(ReactiveUserRepository reactiveUserRepository,
+                                                   UserVersionService userVersionService,
+                                                   UserAvailabilityService userAvailabilityService,
+                                                   UserLookupService userLookupService,
+                                                   @Value("${users.page.default-size:20}") int defaultPageSize,
+                                                   @Value("${users.page.max-size:100}") int maxPageSize) {
+        return new ReactiveUserHandler(reactiveUserRepository, userVersionService, userAvailabilityService,
+            userLookupService, defaultPageSize, maxPageSize);
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> reactiveUserRoutes(ReactiveUserHandler handler) {
+        return RouterFunctions.route()
+            .GET("/users", handler::listUsers)
+            .GET("/users/search", handler::findUserByUsername)
+            .POST("/users", handler::createUser)
+            .build();
+    }
+
+    /**
+     * The Netty server itself; port 0 picks a free port (see {@link DisposableServer#port()}).
+     */
+    @Bean(destroyMethod = "disposeNow")
+    public DisposableServer reactiveUserServer(RouterFunction<ServerResponse> reactiveUserRoutes,
+                                               ObjectMapper objectMapper,
+                                               @Value("${reactive.server.port:8081}") int port) {
+        // Serialize with the application's ObjectMapper so both stacks return identical JSON
+        HandlerStrategies strategies = HandlerStrategies.builder()
+            .codecs(codecs -> {
+                codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+            })
+            .build();
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(reactiveUserRoutes, strategies);
+        DisposableServer server = HttpServer.create()
+            .port(port)
+            .handle(new ReactorHttpHandlerAdapter(httpHandler))
+            .bindNow();
+        logger.info("Reactive user API listening on port {}", server.port());
+        return server;
+    }
+}
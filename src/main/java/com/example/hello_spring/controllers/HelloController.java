@@ -1,23 +1,62 @@
 package com.example.hello_spring.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.example.hello_spring.cron_jobs.PingService;
+import com.example.hello_spring.services.CacheInvalidationBus;
 import com.example.hello_spring.services.CacheService;
+import com.example.hello_spring.services.ConnectionPoolSizingService;
+import com.example.hello_spring.services.JfrProfilingService;
+import com.example.hello_spring.services.JvmTelemetryService;
+import com.example.hello_spring.services.OffHeapCacheTier;
+import com.example.hello_spring.services.RequestMetrics;
+import com.example.hello_spring.services.SecondLevelCacheService;
+import com.example.hello_spring.services.StartupReportService;
+import com.example.hello_spring.services.UserAvailabilityService;
+import com.example.hello_spring.services.UserExportService;
+import com.example.hello_spring.services.UserImportService;
+import com.example.hello_spring.services.UserLookupService;
+import com.example.hello_spring.services.UserVersionService;
+import com.example.hello_spring.services.UserWriteBehindService;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.example.hello_spring.entities.User;
 import com.example.hello_spring.repositories.UserRepository;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @RestController
 public class HelloController {
 
+	// Lazy: created after startup (startup.deferred-beans)
 	@Autowired
+	@Lazy
 	private PingService pingService;
 
 	@Autowired
@@ -26,70 +65,123 @@ public class HelloController {
 	@Autowired
 	private UserRepository userRepository;
 
+	@Autowired
+	private UserLookupService userLookupService;
+
+	@Autowired
+	private UserExportService userExportService;
+
+	@Autowired
+	private UserImportService userImportService;
+
+	@Autowired
+	private UserVersionService userVersionService;
+
+	@Autowired
+	private UserAvailabilityService userAvailabilityService;
 
+	@Autowired(required = false)
+	private UserWriteBehindService userWriteBehindService;
 
+	@Autowired
+	@Lazy
+	private JvmTelemetryService jvmTelemetryService;
+
+	@Autowired(required = false)
+	private JfrProfilingService jfrProfilingService;
+
+	@Autowired
+	private RequestMetrics requestMetrics;
+
+	@Autowired
+	private SecondLevelCacheService secondLevelCacheService;
+
+	@Autowired(required = false)
+	private ConnectionPoolSizingService connectionPoolSizingService;
+
+	@Autowired
+	private StartupReportService startupReportService;
+
+	@Value("${users.page.default-size:20}")
+	private int defaultPageSize;
+
+	@Value("${users.page.max-size:100}")
+	private int maxPageSize;
+
+	@Value("${users.availability.max-batch-size:1000}")
+	private int maxAvailabilityBatchSize;
+
+	@Value("${users.write-behind.await-timeout:10s}")
+	private Duration writeBehindAwaitTimeout;
+
+
+	/**
+	 * Latest JVM telemetry sample; sampled in the background, so polling is cheap.
+	 */
 	@GetMapping("/memory")
-	public MemoryResponse getMemoryUsage() {
-		Runtime runtime = Runtime.getRuntime();
-		long totalMemory = runtime.totalMemory();
-		long freeMemory = runtime.freeMemory();
-		long usedMemory = totalMemory - freeMemory;
-		long maxMemory = runtime.maxMemory();
-		
-		return new MemoryResponse(usedMemory, freeMemory, totalMemory, maxMemory);
+	public JvmTelemetryService.MemoryResponse getMemoryUsage() {
+		return jvmTelemetryService.getSnapshot();
 	}
 
 	/**
-	 * Memory response data class
+	 * Top-N hot methods, allocating frames and contended monitors from the continuous JFR session.
 	 */
-	public static class MemoryResponse {
-		private final long usedMemory;
-		private final long freeMemory;
-		private final long totalMemory;
-		private final long maxMemory;
-		private final String usedMemoryFormatted;
-		private final String freeMemoryFormatted;
-		private final String totalMemoryFormatted;
-		private final String maxMemoryFormatted;
-		private final double usagePercentage;
-		
-		public MemoryResponse(long usedMemory, long freeMemory, long totalMemory, long maxMemory) {
-			this.usedMemory = usedMemory;
-			this.freeMemory = freeMemory;
-			this.totalMemory = totalMemory;
-			this.maxMemory = maxMemory;
-			this.usedMemoryFormatted = formatBytes(usedMemory);
-			this.freeMemoryFormatted = formatBytes(freeMemory);
-			this.totalMemoryFormatted = formatBytes(totalMemory);
-			this.maxMemoryFormatted = formatBytes(maxMemory);
-			this.usagePercentage = Math.round((double) usedMemory / totalMemory * 100.0 * 100.0) / 100.0;
+	@GetMapping("/profile")
+	public JfrProfilingService.ProfileReport getProfile(@RequestParam(defaultValue = "20") int top) {
+		return requireProfiling().report(Math.max(1, Math.min(top, 100)));
+	}
+
+	/**
+	 * Raw JFR recording of the profiling window, for JDK Mission Control or {@code jfr print}.
+	 */
+	@GetMapping("/profile/recording")
+	public void downloadRecording(HttpServletResponse response) throws IOException {
+		Path file = requireProfiling().dump();
+		try {
+			response.setContentType("application/octet-stream");
+			response.setHeader("Content-Disposition", "attachment; filename=\"profile.jfr\"");
+			response.setContentLengthLong(Files.size(file));
+			Files.copy(file, response.getOutputStream());
+		} finally {
+			Files.deleteIfExists(file);
 		}
-		
-		/**
-		 * Format bytes into human readable format
-		 */
-		private static String formatBytes(long bytes) {
-			if (bytes < 1024) return bytes + " B";
-			double kb = bytes / 1024.0;
-			if (kb < 1024) return String.format("%.2f KB", kb);
-			double mb = kb / 1024.0;
-			if (mb < 1024) return String.format("%.2f MB", mb);
-			double gb = mb / 1024.0;
-			return String.format("%.2f GB", gb);
+	}
+
+	/**
+	 * Per-route latency percentiles, response sizes and DB/cache/serialization time, slowest p99 first.
+	 */
+	@GetMapping("/metrics/routes")
+	public RequestMetrics.Report getRouteMetrics() {
+		return requestMetrics.report();
+	}
+
+	/**
+	 * JDBC pool metrics and the adaptive sizing decisions taken on them, newest first.
+	 */
+	@GetMapping("/db/pool")
+	public ConnectionPoolSizingService.Status getConnectionPoolStatus() {
+		if (connectionPoolSizingService == null) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+				"Adaptive pool sizing is disabled; set DB_POOL_ADAPTIVE_ENABLED=true");
 		}
-		
-		// Getters for raw values
-		public long getUsedMemory() { return usedMemory; }
-		public long getFreeMemory() { return freeMemory; }
-		public long getTotalMemory() { return totalMemory; }
-		public long getMaxMemory() { return maxMemory; }
-		
-		// Getters for formatted values
-		public String getUsedMemoryFormatted() { return usedMemoryFormatted; }
-		public String getFreeMemoryFormatted() { return freeMemoryFormatted; }
-		public String getTotalMemoryFormatted() { return totalMemoryFormatted; }
-		public String getMaxMemoryFormatted() { return maxMemoryFormatted; }
-		public double getUsagePercentage() { return usagePercentage; }
+		return connectionPoolSizingService.status();
+	}
+
+	/**
+	 * Time-to-ready and the slowest beans to create, to track startup optimizations.
+	 */
+	@GetMapping("/startup")
+	public StartupReportService.Report getStartupReport(@RequestParam(defaultValue = "20") int top) {
+		return startupReportService.report(Math.max(1, Math.min(top, 500)))
+			.orElseThrow(() -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Application is still starting"));
+	}
+
+	private JfrProfilingService requireProfiling() {
+		if (jfrProfilingService == null) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+				"JFR profiling is disabled; set profiling.jfr.enabled=true");
+		}
+		return jfrProfilingService;
 	}
 
 	@GetMapping("/ping-status")
@@ -100,18 +192,156 @@ public class HelloController {
 	// Database demonstration endpoints
 	@PostMapping("/users")
 	public User createUser(@RequestParam String username, @RequestParam String email) {
+		if (userWriteBehindService != null) {
+			return createUserWriteBehind(username, email);
+		}
 		User user = new User(username, email);
-		return userRepository.save(user);
+		return userLookupService.save(user);
 	}
 
+	/**
+	 * Queue the user for the next write-behind batch and wait for it to commit. The request
+	 * thread only waits; the insert shares a transaction and JDBC batch with concurrent signups.
+	 * A batch that takes longer than {@code users.write-behind.await-timeout} answers 503; the
+	 * insert may still commit afterwards, so a retry can get 409.
+	 */
+	private User createUserWriteBehind(String username, String email) {
+		try {
+			return userWriteBehindService.submit(username, email)
+				.get(writeBehindAwaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+		} catch (TimeoutException e) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Timed out waiting for user insert");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted waiting for user insert");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof DuplicateKeyException) {
+				throw new ResponseStatusException(HttpStatus.CONFLICT, e.getCause().getMessage());
+			}
+			if (e.getCause() instanceof RejectedExecutionException) {
+				throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getCause().getMessage());
+			}
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+				: new IllegalStateException(e.getCause());
+		}
+	}
+
+	@GetMapping("/users/write-behind")
+	public UserWriteBehindService.Stats writeBehindStats() {
+		if (userWriteBehindService == null) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+				"Write-behind is disabled; set USERS_WRITE_BEHIND_ENABLED=true");
+		}
+		return userWriteBehindService.stats();
+	}
+
+	/**
+	 * Bulk import from a JSON array or NDJSON body of {"username", "email"} objects.
+	 * Rows are inserted in batches; username conflicts are reported per row.
+	 */
+	@PostMapping(value = "/users/import", consumes = {"application/json", "application/x-ndjson"})
+	public UserImportService.ImportResult importUsers(HttpServletRequest request) throws IOException {
+		return userImportService.importUsers(request.getInputStream());
+	}
+
+	/**
+	 * Keyset-paginated user listing. Pass the {@code next} cursor from the previous
+	 * page to continue; the page size is capped at {@code users.page.max-size}.
+	 * Answers 304 without a query when {@code If-None-Match} carries the current ETag.
+	 */
 	@GetMapping("/users")
-	public List<User> getAllUsers() {
-		return userRepository.findAll();
+	public UserPage getAllUsers(@RequestParam(required = false) Integer limit,
+								@RequestParam(required = false) String cursor,
+								WebRequest webRequest) {
+		// Read the version before the query so a concurrent write can only make the ETag stale
+		if (webRequest.checkNotModified(userVersionService.collectionETag())) {
+			return null;
+		}
+		int pageSize = Math.max(1, Math.min(limit != null ? limit : defaultPageSize, maxPageSize));
+		long afterId = cursor == null || cursor.isEmpty() ? 0L : decodeCursor(cursor);
+
+		// Fetch one extra row to know whether another page exists
+		List<User> users = userRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageSize + 1));
+		String next = null;
+		if (users.size() > pageSize) {
+			users = users.subList(0, pageSize);
+			next = encodeCursor(users.get(pageSize - 1).getId());
+		}
+		return new UserPage(users, pageSize, next);
+	}
+
+	/**
+	 * Stream every user straight to the response as NDJSON (default) or CSV.
+	 */
+	@GetMapping("/users/export")
+	public void exportUsers(@RequestParam(defaultValue = "ndjson") String format,
+							HttpServletResponse response) throws IOException {
+		if ("csv".equalsIgnoreCase(format)) {
+			response.setContentType("text/csv;charset=UTF-8");
+			response.setHeader("Content-Disposition", "attachment; filename=\"users.csv\"");
+			userExportService.exportCsv(response.getOutputStream());
+		} else if ("ndjson".equalsIgnoreCase(format)) {
+			response.setContentType("application/x-ndjson");
+			userExportService.exportNdjson(response.getOutputStream());
+		} else {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+		}
+	}
+
+	static String encodeCursor(long id) {
+		return Base64.getUrlEncoder().withoutPadding()
+			.encodeToString(Long.toString(id).getBytes(StandardCharsets.US_ASCII));
+	}
+
+	static long decodeCursor(String cursor) {
+		try {
+			return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+		}
 	}
 
+	/**
+	 * Look up a user by username; answers 304 when {@code If-None-Match} carries the current ETag.
+	 */
 	@GetMapping("/users/search")
-	public Optional<User> findUserByUsername(@RequestParam String username) {
-		return userRepository.findByUsername(username);
+	public Optional<User> findUserByUsername(@RequestParam String username, WebRequest webRequest) {
+		if (webRequest.checkNotModified(userVersionService.userETag(username))) {
+			return null;
+		}
+		return userLookupService.findByUsername(username);
+	}
+
+	/**
+	 * Whether a username and/or email is still free. Names that were never used are answered
+	 * without a database query.
+	 */
+	@GetMapping("/users/availability")
+	public UserAvailabilityService.Result checkAvailability(@RequestParam(required = false) String username,
+															 @RequestParam(required = false) String email) {
+		return userAvailabilityService.check(
+			username != null ? List.of(username) : List.of(),
+			email != null ? List.of(email) : List.of());
+	}
+
+	/**
+	 * Batch availability check for {"usernames": [...], "emails": [...]}; costs at most one
+	 * IN query each for the names that might be taken.
+	 */
+	@PostMapping("/users/availability")
+	public UserAvailabilityService.Result checkAvailability(@RequestBody AvailabilityRequest request) {
+		List<String> usernames = request.getUsernames() != null ? request.getUsernames() : List.of();
+		List<String> emails = request.getEmails() != null ? request.getEmails() : List.of();
+		if (usernames.size() + emails.size() > maxAvailabilityBatchSize) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+				"At most " + maxAvailabilityBatchSize + " names per availability check");
+		}
+		if (usernames.contains(null) || emails.contains(null)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Names must not be null");
+		}
+		return userAvailabilityService.check(usernames, emails);
 	}
 
 	@GetMapping("/health")
@@ -126,17 +356,19 @@ public class HelloController {
 		String key = "demo-key";
 		String value = "Hello from Cache! Timestamp: " + System.currentTimeMillis();
 		
-		// Try to get existing value
-		Object existingValue = cacheService.get(key);
+		// Load the value only if it is missing; concurrent misses share one load
+		AtomicBoolean loaded = new AtomicBoolean(false);
+		Object cachedValue = cacheService.getOrLoad(key, k -> {
+			loaded.set(true);
+			return value;
+		});
 		
-		if (existingValue == null) {
-			// Put a new value if none exists
-			cacheService.put(key, value);
-			return new CacheDemoResponse("Cache was empty. Stored new value: " + value, 
+		if (loaded.get()) {
+			return new CacheDemoResponse("Cache was empty. Stored new value: " + cachedValue, 
 				cacheService.size(), false);
 		} else {
 			// Return existing cached value
-			return new CacheDemoResponse("Retrieved from cache: " + existingValue, 
+			return new CacheDemoResponse("Retrieved from cache: " + cachedValue, 
 				cacheService.size(), true);
 		}
 	}
@@ -145,7 +377,9 @@ public class HelloController {
 	public CacheStatsResponse cacheStats() {
 		// Show cache statistics
 		return new CacheStatsResponse(cacheService.size(), 
-			"Cache is ready for use. Try /cache/demo to test it!");
+			"Cache is ready for use. Try /cache/demo to test it!", cacheService.stats(),
+			cacheService.weightedSize(), cacheService.maximumWeight(), cacheService.offHeapStats(),
+			cacheService.invalidationStats(), secondLevelCacheService.stats(), userAvailabilityService.stats());
 	}
 
 	/**
@@ -172,6 +406,38 @@ public class HelloController {
 		public PingService.PingStatus getPingStatus() { return pingStatus; }
 	}
 
+	/**
+	 * User page response data class
+	 */
+	public static class UserPage {
+		private final List<User> items;
+		private final int limit;
+		private final String next;
+
+		public UserPage(List<User> items, int limit, String next) {
+			this.items = items;
+			this.limit = limit;
+			this.next = next;
+		}
+
+		public List<User> getItems() { return items; }
+		public int getLimit() { return limit; }
+		public String getNext() { return next; }
+	}
+
+	/**
+	 * Availability batch request data class
+	 */
+	public static class AvailabilityRequest {
+		private List<String> usernames;
+		private List<String> emails;
+
+		public List<String> getUsernames() { return usernames; }
+		public void setUsernames(List<String> usernames) { this.usernames = usernames; }
+		public List<String> getEmails() { return emails; }
+		public void setEmails(List<String> emails) { this.emails = emails; }
+	}
+
 	/**
 	 * Cache demo response data class
 	 */
@@ -197,13 +463,64 @@ public class HelloController {
 	public static class CacheStatsResponse {
 		private final long size;
 		private final String status;
+		private final long requestCount;
+		private final long hitCount;
+		private final long missCount;
+		private final double hitRate;
+		private final double missRate;
+		private final long loadSuccessCount;
+		private final long loadFailureCount;
+		private final double averageLoadPenaltyMillis;
+		private final long evictionCount;
+		private final long evictionWeight;
+		private final long weightedSize;
+		private final long maximumWeight;
+		private final OffHeapCacheTier.Stats offHeap;
+		private final CacheInvalidationBus.Stats invalidation;
+		private final SecondLevelCacheService.Stats secondLevel;
+		private final UserAvailabilityService.Stats availability;
 
-		public CacheStatsResponse(long size, String status) {
+		public CacheStatsResponse(long size, String status, CacheStats stats,
+								  long weightedSize, long maximumWeight, OffHeapCacheTier.Stats offHeap,
+								  CacheInvalidationBus.Stats invalidation, SecondLevelCacheService.Stats secondLevel,
+								  UserAvailabilityService.Stats availability) {
 			this.size = size;
 			this.status = status;
+			this.requestCount = stats.requestCount();
+			this.hitCount = stats.hitCount();
+			this.missCount = stats.missCount();
+			this.hitRate = stats.hitRate();
+			this.missRate = stats.missRate();
+			this.loadSuccessCount = stats.loadSuccessCount();
+			this.loadFailureCount = stats.loadFailureCount();
+			this.averageLoadPenaltyMillis = stats.averageLoadPenalty() / 1_000_000.0;
+			this.evictionCount = stats.evictionCount();
+			this.evictionWeight = stats.evictionWeight();
+			this.weightedSize = weightedSize;
+			this.maximumWeight = maximumWeight;
+			this.offHeap = offHeap;
+			this.invalidation = invalidation;
+			this.secondLevel = secondLevel;
+			this.availability = availability;
 		}
 
 		public long getSize() { return size; }
 		public String getStatus() { return status; }
+		public long getRequestCount() { return requestCount; }
+		public long getHitCount() { return hitCount; }
+		public long getMissCount() { return missCount; }
+		public double getHitRate() { return hitRate; }
+		public double getMissRate() { return missRate; }
+		public long getLoadSuccessCount() { return loadSuccessCount; }
+		public long getLoadFailureCount() { return loadFailureCount; }
+		public double getAverageLoadPenaltyMillis() { return averageLoadPenaltyMillis; }
+		public long getEvictionCount() { return evictionCount; }
+		public long getEvictionWeight() { return evictionWeight; }
+		public long getWeightedSize() { return weightedSize; }
+		public long getMaximumWeight() { return maximumWeight; }
+		public OffHeapCacheTier.Stats getOffHeap() { return offHeap; }
+		public CacheInvalidationBus.Stats getInvalidation() { return invalidation; }
+		public SecondLevelCacheService.Stats getSecondLevel() { return secondLevel; }
+		public UserAvailabilityService.Stats getAvailability() { return availability; }
 	}
 }
@@ -0,0 +1,118 @@
+package com.example.hello_spring.controllers;
+
+import com.example.hello_spring.entities.User;
+import com.example.hello_spring.repositories.ReactiveUserRepository;
+import com.example.hello_spring.services.UserAvailabilityService;
+import com.example.hello_spring.services.UserLookupService;
+import com.example.hello_spring.services.UserVersionService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reactive variant of the user endpoints in {@link HelloController}: same paths, parameters,
+ * JSON and ETags, but served on Reactor Netty with R2DBC, so no thread waits on the database.
+ * Only active with the {@code reactive} profile (see {@code ReactiveConfig}).
+ *
+ * Writes bypass Hibernate, so after an insert this handler does what the JPA entity listener
+ * and {@link UserLookupService#save} would: it adds the names to the availability filter, bumps
+ * the ETag versions and drops cached lookups that could still say "not found".
+ */
+public class ReactiveUserHandler {
+
+	private final ReactiveUserRepository users;
+	private final UserVersionService userVersionService;
+	private final UserAvailabilityService userAvailabilityService;
+	private final UserLookupService userLookupService;
+	private final int defaultPageSize;
+	private final int maxPageSize;
+
+	public ReactiveUserHandler(ReactiveUserRepository users, UserVersionService userVersionService,
+							   UserAvailabilityService userAvailabilityService, UserLookupService userLookupService,
+							   int defaultPageSize, int maxPageSize) {
+		this.users = users;
+		this.userVersionService = userVersionService;
+		this.userAvailabilityService = userAvailabilityService;
+		this.userLookupService = userLookupService;
+		this.defaultPageSize = defaultPageSize;
+		this.maxPageSize = maxPageSize;
+	}
+
+	/**
+	 * {@code GET /users?limit=&cursor=}: keyset-paginated listing.
+	 */
+	public Mono<ServerResponse> listUsers(ServerRequest request) {
+		String etag = userVersionService.collectionETag();
+		return request.checkNotModified(etag).switchIfEmpty(Mono.defer(() -> {
+			int limit = request.queryParam("limit").map(ReactiveUserHandler::parseInt).orElse(defaultPageSize);
+			int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+			long afterId = request.queryParam("cursor").filter(cursor -> !cursor.isEmpty())
+				.map(HelloController::decodeCursor).orElse(0L);
+
+			// Fetch one extra row to know whether another page exists
+			return users.findByIdGreaterThan(afterId, pageSize + 1).collectList().flatMap(page -> {
+				List<User> items = page;
+				String next = null;
+				if (page.size() > pageSize) {
+					items = page.subList(0, pageSize);
+					next = HelloController.encodeCursor(items.get(pageSize - 1).getId());
+				}
+				return ServerResponse.ok().eTag(etag).bodyValue(new HelloController.UserPage(items, pageSize, next));
+			});
+		})).onErrorResume(ResponseStatusException.class, ReactiveUserHandler::error);
+	}
+
+	/**
+	 * {@code GET /users/search?username=}: one user, or 404 when there is none.
+	 */
+	public Mono<ServerResponse> findUserByUsername(ServerRequest request) {
+		Optional<String> username = request.queryParam("username");
+		if (username.isEmpty()) {
+			return ServerResponse.badRequest().bodyValue("username is required");
+		}
+		String etag = userVersionService.userETag(username.get());
+		return request.checkNotModified(etag).switchIfEmpty(Mono.defer(() -> users.findByUsername(username.get())
+			.flatMap(user -> ServerResponse.ok().eTag(etag).bodyValue(user))
+			.switchIfEmpty(ServerResponse.notFound().eTag(etag).build())));
+	}
+
+	/**
+	 * {@code POST /users?username=&email=}: insert one user, 409 when the username is taken.
+	 */
+	public Mono<ServerResponse> createUser(ServerRequest request) {
+		Optional<String> username = request.queryParam("username");
+		Optional<String> email = request.queryParam("email");
+		if (username.isEmpty() || email.isEmpty()) {
+			return ServerResponse.badRequest().bodyValue("username and email are required");
+		}
+		// Before the insert, so the filter never reports a committed name as free
+		userAvailabilityService.userSaved(username.get(), email.get());
+		return users.insert(username.get(), email.get())
+			.doOnNext(user -> {
+				userVersionService.userInserted(user.getUsername());
+				// Also evicts Hibernate's query cache, which did not see this insert
+				userLookupService.evict(user.getUsername());
+			})
+			.flatMap(user -> ServerResponse.ok().bodyValue(user))
+			.onErrorResume(DataIntegrityViolationException.class,
+				e -> ServerResponse.status(HttpStatus.CONFLICT).bodyValue("username already exists"));
+	}
+
+	private static int parseInt(String value) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid limit");
+		}
+	}
+
+	private static Mono<ServerResponse> error(ResponseStatusException e) {
+		return ServerResponse.status(e.getStatusCode()).bodyValue(e.getReason() != null ? e.getReason() : "");
+	}
+}
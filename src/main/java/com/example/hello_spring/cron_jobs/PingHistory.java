@@ -0,0 +1,58 @@
+package com.example.hello_spring.cron_jobs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size, lock-free ring buffer of the most recent ping results. Writers claim a sequence
+ * number and publish into its slot; readers walk back from the latest sequence and skip slots
+ * that were claimed but not yet published or already overwritten by a newer lap.
+ */
+final class PingHistory {
+
+    private final AtomicReferenceArray<Slot> slots;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    PingHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("History size must be positive");
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    void add(PingService.PingResult result) {
+        long sequence = nextSequence.getAndIncrement();
+        Slot slot = new Slot(sequence, result);
+        // A writer that stalled for a whole lap must not overwrite the newer result in its slot
+        slots.accumulateAndGet((int) (sequence % slots.length()), slot,
+            (current, next) -> current == null || current.sequence < next.sequence ? next : current);
+    }
+
+    /**
+     * @return The retained results, newest first
+     */
+    List<PingService.PingResult> snapshot() {
+        long end = nextSequence.get();
+        long start = Math.max(0, end - slots.length());
+        List<PingService.PingResult> results = new ArrayList<>((int) (end - start));
+        for (long sequence = end - 1; sequence >= start; sequence--) {
+            Slot slot = slots.get((int) (sequence % slots.length()));
+            if (slot != null && slot.sequence == sequence) {
+                results.add(slot.result);
+            }
+        }
+        return results;
+    }
+
+    private static final class Slot {
+        private final long sequence;
+        private final PingService.PingResult result;
+
+        Slot(long sequence, PingService.PingResult result) {
+            this.sequence = sequence;
+            this.result = result;
+        }
+    }
+}
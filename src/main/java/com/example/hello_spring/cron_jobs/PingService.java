@@ -1,19 +1,48 @@
 package com.example.hello_spring.cron_jobs;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.client.RestClientException;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Service to ping a configured URL at regular intervals.
  * Useful for keeping applications alive on free hosting services.
+ *
+ * Besides the keep-alive URL, a list of targets (upstreams, replicas) can be probed, each on
+ * its own interval. Probes are sent with the non-blocking JDK {@link HttpClient}, which reuses
+ * connections between ticks, so one slow target never delays the others or the scheduler.
+ * Latency of every target is recorded in a Micrometer timer ({@code ping.latency}, tag
+ * {@code target}) whose p50/p95/p99/max are reported by {@link #getStatus()}.
+ *
+ * State is safe to read from request threads while probes complete on client threads: each
+ * target swaps an immutable state on every result and keeps its last results in a lock-free
+ * ring buffer, and the service-wide summary is likewise an immutable snapshot. Failing targets
+ * back off exponentially and a circuit breaker stops probing dead ones (see {@link PingTarget}).
  */
 @Service
 public class PingService {
@@ -30,71 +59,241 @@ public class PingService {
     @Value("${ping.enabled:false}")
     private boolean pingEnabled;
 
-    private final RestTemplate restTemplate;
-    private int pingCount = 0;
-    private String lastPingResult = "Not started";
-    private LocalDateTime lastPingTime;
+    @Value("${ping.targets:}")
+    private String pingTargets;
 
-    public PingService() {
-        this.restTemplate = new RestTemplate();
+    @Value("${ping.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Value("${ping.read-timeout:10s}")
+    private Duration readTimeout;
+
+    @Value("${ping.history-size:20}")
+    private int historySize;
+
+    @Value("${ping.backoff.max:30m}")
+    private Duration maxBackoff;
+
+    @Value("${ping.backoff.jitter:0.2}")
+    private double backoffJitter;
+
+    @Value("${ping.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${ping.circuit-breaker.open-duration:5m}")
+    private Duration openDuration;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private HttpClient httpClient;
+    private volatile List<PingTarget> targets = List.of();
+    private final AtomicReference<Summary> summary = new AtomicReference<>(new Summary(0, "Not started", 0));
+
+    /**
+     * Build the HTTP client and the target list from configuration.
+     */
+    @PostConstruct
+    public void init() {
+        if (meterRegistry == null) {
+            meterRegistry = new SimpleMeterRegistry();
+        }
+        HttpClient.Builder builder = HttpClient.newBuilder()
+            .connectTimeout(connectTimeout)
+            .followRedirects(HttpClient.Redirect.NORMAL);
+        // Like Spring Boot, only honour the flag on Java 21+. The client's default executor is a
+        // cached platform pool, which would undo virtual-thread mode for response handling
+        if (virtualThreads && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            builder.executor(new VirtualThreadTaskExecutor("ping-"));
+        }
+        httpClient = builder.build();
+
+        PingTarget.Settings settings = new PingTarget.Settings(historySize, maxBackoff, backoffJitter,
+            failureThreshold, openDuration);
+        List<PingTarget> configured = new ArrayList<>();
+        if (pingUrl != null && !pingUrl.trim().isEmpty()) {
+            configured.add(newTarget(pingUrl.trim(), Duration.ofMinutes(pingInterval), settings));
+        }
+        for (TargetSpec spec : parseTargets(pingTargets, Duration.ofMinutes(pingInterval))) {
+            configured.add(newTarget(spec.url, spec.interval, settings));
+        }
+        targets = List.copyOf(configured);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (httpClient instanceof AutoCloseable closeable) {
+            // HttpClient is closeable from Java 21
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                logger.debug("Error closing ping HTTP client: {}", e.getMessage());
+            }
+        }
     }
 
     /**
-     * Scheduled method that pings the configured URL.
-     * The interval is configurable via the PING_INTERVAL environment variable.
+     * Parse a comma-separated target list. Each entry is a URL, optionally followed by
+     * {@code |interval} (e.g. {@code https://replica/health|30s}); entries without an
+     * interval use {@code defaultInterval}.
      */
-    @Scheduled(fixedRateString = "#{${ping.interval:5} * 60 * 1000}", initialDelayString = "10000")
-    public void pingUrl() {
-        if (!pingEnabled || pingUrl == null || pingUrl.trim().isEmpty()) {
-            logger.debug("Ping service is disabled or URL not configured");
-            return;
+    static List<TargetSpec> parseTargets(String targets, Duration defaultInterval) {
+        List<TargetSpec> specs = new ArrayList<>();
+        if (targets == null || targets.isBlank()) {
+            return specs;
+        }
+        for (String entry : targets.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int bar = trimmed.indexOf('|');
+            String url = bar >= 0 ? trimmed.substring(0, bar).trim() : trimmed;
+            Duration interval = bar >= 0 ? parseInterval(trimmed.substring(bar + 1).trim()) : defaultInterval;
+            URI uri = URI.create(url);
+            if (uri.getScheme() == null || !uri.getScheme().startsWith("http")) {
+                throw new IllegalArgumentException("Invalid ping target (expected http(s) URL): " + url);
+            }
+            specs.add(new TargetSpec(url, interval));
         }
+        return specs;
+    }
 
+    // Same formats as Duration properties (30s, 2m, PT1M); a bare number is seconds
+    private static Duration parseInterval(String interval) {
         try {
-            logger.info("Pinging URL: {} (Attempt #{}) at {}", 
-                pingUrl, ++pingCount, LocalDateTime.now().format(formatter));
-            
-            long startTime = System.currentTimeMillis();
-            String response = restTemplate.getForObject(pingUrl, String.class);
-            long responseTime = System.currentTimeMillis() - startTime;
-            
-            lastPingTime = LocalDateTime.now();
-            lastPingResult = String.format("SUCCESS - Response time: %dms", responseTime);
-            
-            logger.info("Ping successful! Response time: {}ms", responseTime);
-            
-            // Log first 100 characters of response for debugging
-            if (response != null && !response.trim().isEmpty()) {
-                String shortResponse = response.length() > 100 ? 
-                    response.substring(0, 100) + "..." : response;
-                logger.debug("Response preview: {}", shortResponse.trim());
+            return DurationStyle.detectAndParse(interval, ChronoUnit.SECONDS);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid ping interval: " + interval, e);
+        }
+    }
+
+    private PingTarget newTarget(String url, Duration interval, PingTarget.Settings settings) {
+        Timer latency = Timer.builder("ping.latency")
+            .tag("target", url)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .description("Round-trip time of ping probes")
+            .register(meterRegistry);
+        return new PingTarget(url, interval, latency, settings);
+    }
+
+    /**
+     * Scheduled tick that sends a probe to every target whose next probe is due. Probes are
+     * sent asynchronously; a target with a probe still in flight, backing off or with an open
+     * circuit is skipped.
+     */
+    @Scheduled(fixedDelayString = "${ping.tick-millis:1000}", initialDelayString = "10000")
+    public void pingDueTargets() {
+        if (!pingEnabled || targets.isEmpty()) {
+            logger.debug("Ping service is disabled or no targets configured");
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (PingTarget target : targets) {
+            if (target.tryStart(now)) {
+                ping(target);
             }
-            
-        } catch (RestClientException e) {
-            lastPingTime = LocalDateTime.now();
-            lastPingResult = "FAILED - " + e.getMessage();
-            logger.error("Failed to ping URL: {} - Error: {}", pingUrl, e.getMessage());
-        } catch (Exception e) {
-            lastPingTime = LocalDateTime.now();
-            lastPingResult = "ERROR - " + e.getMessage();
-            logger.error("Unexpected error during ping: {}", e.getMessage(), e);
         }
     }
 
+    private void ping(PingTarget target) {
+        HttpRequest request = HttpRequest.newBuilder(target.uri)
+            .timeout(readTimeout)
+            .header("User-Agent", "hello-spring-ping")
+            .GET()
+            .build();
+        logger.info("Pinging URL: {} at {}", target.url, LocalDateTime.now().format(formatter));
+
+        long startTime = System.nanoTime();
+        try {
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> record(target, response, error, System.nanoTime() - startTime));
+        } catch (RuntimeException e) {
+            record(target, null, e, -1);
+        }
+    }
+
+    private void record(PingTarget target, HttpResponse<Void> response, Throwable error, long elapsedNanos) {
+        long responseTime = elapsedNanos / 1_000_000;
+        boolean success;
+        String result;
+        if (error != null) {
+            success = false;
+            elapsedNanos = -1;
+            Throwable cause = error.getCause() != null ? error.getCause() : error;
+            result = "FAILED - " + cause.getClass().getSimpleName()
+                + (cause.getMessage() != null ? ": " + cause.getMessage() : "");
+            logger.error("Failed to ping URL: {} - Error: {}", target.url, result);
+        } else if (response.statusCode() < 400) {
+            success = true;
+            result = "SUCCESS - Response time: " + responseTime + "ms";
+            logger.info("Ping successful! {} responded in {}ms", target.url, responseTime);
+        } else {
+            success = false;
+            result = "FAILED - HTTP " + response.statusCode() + " in " + responseTime + "ms";
+            logger.error("Failed to ping URL: {} - HTTP {}", target.url, response.statusCode());
+        }
+        long now = System.currentTimeMillis();
+        target.complete(now, success, elapsedNanos, result);
+        summary.updateAndGet(current -> new Summary(current.totalPings + 1, result, now));
+    }
+
     /**
      * Get ping service status information
      */
     public PingStatus getStatus() {
+        List<PingTarget> current = targets;
+        List<TargetStatus> targetStatuses = new ArrayList<>(current.size());
+        for (PingTarget target : current) {
+            targetStatuses.add(target.status());
+        }
+        Summary snapshot = summary.get();
         return new PingStatus(
             pingEnabled,
             pingUrl,
             pingInterval,
-            pingCount,
-            lastPingResult,
-            lastPingTime != null ? lastPingTime.format(formatter) : "Never"
+            (int) snapshot.totalPings,
+            snapshot.lastResult,
+            formatTime(snapshot.lastPingAt),
+            targetStatuses
         );
     }
 
+    static String formatTime(long epochMillis) {
+        if (epochMillis <= 0) {
+            return "Never";
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()).format(formatter);
+    }
+
+    /**
+     * Immutable service-wide totals, replaced as a whole on every result.
+     */
+    private static final class Summary {
+        private final long totalPings;
+        private final String lastResult;
+        private final long lastPingAt;
+
+        Summary(long totalPings, String lastResult, long lastPingAt) {
+            this.totalPings = totalPings;
+            this.lastResult = lastResult;
+            this.lastPingAt = lastPingAt;
+        }
+    }
+
+    static final class TargetSpec {
+        final String url;
+        final Duration interval;
+
+        TargetSpec(String url, Duration interval) {
+            this.url = url;
+            this.interval = interval;
+        }
+    }
+
     /**
      * Data class for ping status information
      */
@@ -105,15 +304,18 @@ public class PingService {
         private final int totalPings;
         private final String lastResult;
         private final String lastPingTime;
+        private final List<TargetStatus> targets;
 
-        public PingStatus(boolean enabled, String url, int intervalMinutes, 
-                         int totalPings, String lastResult, String lastPingTime) {
+        public PingStatus(boolean enabled, String url, int intervalMinutes,
+                         int totalPings, String lastResult, String lastPingTime,
+                         List<TargetStatus> targets) {
             this.enabled = enabled;
             this.url = url;
             this.intervalMinutes = intervalMinutes;
             this.totalPings = totalPings;
             this.lastResult = lastResult;
             this.lastPingTime = lastPingTime;
+            this.targets = targets;
         }
 
         // Getters
@@ -123,5 +325,107 @@ public class PingService {
         public int getTotalPings() { return totalPings; }
         public String getLastResult() { return lastResult; }
         public String getLastPingTime() { return lastPingTime; }
+        public List<TargetStatus> getTargets() { return targets; }
+    }
+
+    /**
+     * Data class for the status of one ping target
+     */
+    public static class TargetStatus {
+        private final String url;
+        private final long intervalSeconds;
+        private final long totalPings;
+        private final long failures;
+        private final String lastResult;
+        private final String lastPingTime;
+        private final LatencySummary latency;
+        private final String circuit;
+        private final int consecutiveFailures;
+        private final String nextPingTime;
+        private final List<PingResult> history;
+
+        public TargetStatus(String url, long intervalSeconds, long totalPings, long failures,
+                            String lastResult, String lastPingTime, LatencySummary latency,
+                            String circuit, int consecutiveFailures, String nextPingTime,
+                            List<PingResult> history) {
+            this.url = url;
+            this.intervalSeconds = intervalSeconds;
+            this.totalPings = totalPings;
+            this.failures = failures;
+            this.lastResult = lastResult;
+            this.lastPingTime = lastPingTime;
+            this.latency = latency;
+            this.circuit = circuit;
+            this.consecutiveFailures = consecutiveFailures;
+            this.nextPingTime = nextPingTime;
+            this.history = history;
+        }
+
+        // Getters
+        public String getUrl() { return url; }
+        public long getIntervalSeconds() { return intervalSeconds; }
+        public long getTotalPings() { return totalPings; }
+        public long getFailures() { return failures; }
+        public String getLastResult() { return lastResult; }
+        public String getLastPingTime() { return lastPingTime; }
+        public LatencySummary getLatency() { return latency; }
+        public String getCircuit() { return circuit; }
+        public int getConsecutiveFailures() { return consecutiveFailures; }
+        public String getNextPingTime() { return nextPingTime; }
+        public List<PingResult> getHistory() { return history; }
+    }
+
+    /**
+     * Data class for one recorded ping result
+     */
+    public static class PingResult {
+        private final long timestamp;
+        private final double latencyMillis;
+        private final boolean success;
+        private final String result;
+
+        public PingResult(long timestamp, double latencyMillis, boolean success, String result) {
+            this.timestamp = timestamp;
+            this.latencyMillis = latencyMillis;
+            this.success = success;
+            this.result = result;
+        }
+
+        // Getters
+        public long getTimestamp() { return timestamp; }
+        public double getLatencyMillis() { return latencyMillis; }
+        public boolean isSuccess() { return success; }
+        public String getResult() { return result; }
+    }
+
+    /**
+     * Data class for a target's latency distribution, in milliseconds. Percentiles and max
+     * cover a sliding window of the last few minutes; count and mean cover all time.
+     */
+    public static class LatencySummary {
+        private final long count;
+        private final double meanMillis;
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        public LatencySummary(long count, double meanMillis, double p50Millis, double p95Millis,
+                              double p99Millis, double maxMillis) {
+            this.count = count;
+            this.meanMillis = meanMillis;
+            this.p50Millis = p50Millis;
+            this.p95Millis = p95Millis;
+            this.p99Millis = p99Millis;
+            this.maxMillis = maxMillis;
+        }
+
+        // Getters
+        public long getCount() { return count; }
+        public double getMeanMillis() { return meanMillis; }
+        public double getP50Millis() { return p50Millis; }
+        public double getP95Millis() { return p95Millis; }
+        public double getP99Millis() { return p99Millis; }
+        public double getMaxMillis() { return maxMillis; }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,181 @@
+package com.example.hello_spring.cron_jobs;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One probed target. Its scheduling and health state is an immutable {@link State} swapped
+ * atomically on each result, so the HTTP client threads that record results and the request
+ * threads that read the status never see a half-updated target.
+ *
+ * After a failure the next probe is pushed out exponentially (with jitter so replicas do not
+ * probe in lockstep). After {@code failureThreshold} consecutive failures the circuit opens and
+ * the target is left alone for {@code openDuration}; then a single half-open probe decides
+ * whether it closes again.
+ */
+final class PingTarget {
+
+    enum Circuit { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Backoff and circuit breaker settings shared by all targets.
+     */
+    static final class Settings {
+        final int historySize;
+        final Duration maxBackoff;
+        final double jitter;
+        final int failureThreshold;
+        final Duration openDuration;
+
+        Settings(int historySize, Duration maxBackoff, double jitter, int failureThreshold, Duration openDuration) {
+            if (jitter < 0 || jitter >= 1) {
+                throw new IllegalArgumentException("Backoff jitter must be in [0, 1)");
+            }
+            if (failureThreshold <= 0) {
+                throw new IllegalArgumentException("Circuit breaker failure threshold must be positive");
+            }
+            this.historySize = historySize;
+            this.maxBackoff = maxBackoff;
+            this.jitter = jitter;
+            this.failureThreshold = failureThreshold;
+            this.openDuration = openDuration;
+        }
+    }
+
+    private static final class State {
+        private final long nextDueAt;
+        private final int consecutiveFailures;
+        private final Circuit circuit;
+        private final long total;
+        private final long failures;
+        private final String lastResult;
+        private final long lastPingAt;
+
+        State(long nextDueAt, int consecutiveFailures, Circuit circuit, long total, long failures,
+              String lastResult, long lastPingAt) {
+            this.nextDueAt = nextDueAt;
+            this.consecutiveFailures = consecutiveFailures;
+            this.circuit = circuit;
+            this.total = total;
+            this.failures = failures;
+            this.lastResult = lastResult;
+            this.lastPingAt = lastPingAt;
+        }
+
+        State halfOpen() {
+            return new State(nextDueAt, consecutiveFailures, Circuit.HALF_OPEN, total, failures, lastResult, lastPingAt);
+        }
+    }
+
+    final String url;
+    final URI uri;
+    final Duration interval;
+    final Timer latency;
+    private final Settings settings;
+    private final AtomicBoolean inFlight = new AtomicBoolean();
+    private final AtomicReference<State> state;
+    private final PingHistory history;
+
+    PingTarget(String url, Duration interval, Timer latency, Settings settings) {
+        this.url = url;
+        this.uri = URI.create(url);
+        this.interval = interval;
+        this.latency = latency;
+        this.settings = settings;
+        this.state = new AtomicReference<>(new State(0, 0, Circuit.CLOSED, 0, 0, "Not started", 0));
+        this.history = new PingHistory(settings.historySize);
+    }
+
+    /**
+     * Claim the next probe if the target is due, its circuit allows it and no probe is in
+     * flight. An open circuit whose wait has elapsed moves to half-open.
+     */
+    boolean tryStart(long now) {
+        if (state.get().nextDueAt > now || !inFlight.compareAndSet(false, true)) {
+            return false;
+        }
+        if (state.get().nextDueAt > now) {
+            // A result landed between the two checks and rescheduled the target
+            inFlight.set(false);
+            return false;
+        }
+        state.updateAndGet(current -> current.circuit == Circuit.OPEN ? current.halfOpen() : current);
+        return true;
+    }
+
+    /**
+     * Record the outcome of the claimed probe and schedule the next one.
+     *
+     * @param latencyNanos Round-trip time, or -1 if no response arrived
+     */
+    void complete(long now, boolean success, long latencyNanos, String result) {
+        double random = ThreadLocalRandom.current().nextDouble();
+        state.updateAndGet(current -> next(current, now, success, result, random));
+        if (latencyNanos >= 0) {
+            latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+        }
+        history.add(new PingService.PingResult(now,
+            latencyNanos >= 0 ? latencyNanos / 1_000_000.0 : -1, success, result));
+        inFlight.set(false);
+    }
+
+    private State next(State current, long now, boolean success, String result, double random) {
+        long total = current.total + 1;
+        if (success) {
+            return new State(now + interval.toMillis(), 0, Circuit.CLOSED, total, current.failures, result, now);
+        }
+        int consecutive = current.consecutiveFailures + 1;
+        long failures = current.failures + 1;
+        if (current.circuit == Circuit.HALF_OPEN || consecutive >= settings.failureThreshold) {
+            return new State(now + settings.openDuration.toMillis(), consecutive, Circuit.OPEN, total, failures, result, now);
+        }
+        return new State(now + backoffMillis(consecutive, random), consecutive, Circuit.CLOSED, total, failures, result, now);
+    }
+
+    /**
+     * Delay before the next probe after {@code consecutiveFailures} failures: the interval
+     * doubled per failure, capped at the larger of the interval and the max backoff, minus up
+     * to {@code jitter} of it.
+     */
+    long backoffMillis(int consecutiveFailures, double random) {
+        long base = interval.toMillis();
+        long cap = Math.max(base, settings.maxBackoff.toMillis());
+        int shift = Math.min(consecutiveFailures, 30);
+        long delay = base > cap >> shift ? cap : Math.min(cap, base << shift);
+        return (long) (delay * (1 - settings.jitter * random));
+    }
+
+    PingService.TargetStatus status() {
+        State current = state.get();
+        return new PingService.TargetStatus(url, interval.toSeconds(), current.total, current.failures,
+            current.lastResult, PingService.formatTime(current.lastPingAt), latencySummary(),
+            current.circuit.name(), current.consecutiveFailures,
+            current.nextDueAt > 0 ? PingService.formatTime(current.nextDueAt) : "Now",
+            history.snapshot());
+    }
+
+    private PingService.LatencySummary latencySummary() {
+        HistogramSnapshot snapshot = latency.takeSnapshot();
+        double p50 = 0, p95 = 0, p99 = 0;
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            double millis = percentile.value(TimeUnit.MILLISECONDS);
+            if (percentile.percentile() == 0.5) {
+                p50 = millis;
+            } else if (percentile.percentile() == 0.95) {
+                p95 = millis;
+            } else if (percentile.percentile() == 0.99) {
+                p99 = millis;
+            }
+        }
+        return new PingService.LatencySummary(snapshot.count(), snapshot.mean(TimeUnit.MILLISECONDS),
+            p50, p95, p99, snapshot.max(TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.hello_spring.entities;
+
+import com.example.hello_spring.services.UserAvailabilityService;
+import com.example.hello_spring.services.UserVersionService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bumps the user versions behind the read ETags on every write of a {@link User}, and adds
+ * inserted or renamed users to the availability filter. Hibernate creates it through Spring,
+ * so both services are injected; they are optional because JPA test slices run without them.
+ *
+ * Versions are bumped when the row is written and again after commit. A reader that picks up
+ * the first bump may still see the old row, but the second bump makes the ETag it handed out
+ * stale, so an uncommitted change never ends up behind a 304.
+ */
+public class UserChangeListener {
+
+    private final ObjectProvider<UserVersionService> versions;
+    private final ObjectProvider<UserAvailabilityService> availability;
+
+    public UserChangeListener(ObjectProvider<UserVersionService> versions,
+                              ObjectProvider<UserAvailabilityService> availability) {
+        this.versions = versions;
+        this.availability = availability;
+    }
+
+    @PostPersist
+    public void inserted(User user) {
+        bump(user.getUsername(), false);
+        availability.ifAvailable(service -> service.userSaved(user.getUsername(), user.getEmail()));
+    }
+
+    @PostUpdate
+    public void updated(User user) {
+        bump(user.getUsername(), true);
+        availability.ifAvailable(service -> service.userSaved(user.getUsername(), user.getEmail()));
+    }
+
+    @PostRemove
+    public void removed(User user) {
+        bump(user.getUsername(), true);
+    }
+
+    private void bump(String username, boolean changed) {
+        UserVersionService service = versions.getIfAvailable();
+        if (service == null) {
+            return;
+        }
+        Runnable bump = changed ? () -> service.userChanged(username) : () -> service.userInserted(username);
+        bump.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump.run();
+                }
+            });
+        }
+    }
+}
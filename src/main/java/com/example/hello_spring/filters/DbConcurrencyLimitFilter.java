@@ -0,0 +1,89 @@
+package com.example.hello_spring.filters;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the number of database-backed requests in flight. With virtual threads the container
+ * no longer limits concurrency, so without a cap thousands of requests would pile up on the
+ * JDBC pool and each wait out the pool's connection timeout. Requests beyond the cap wait
+ * briefly for a permit and are then rejected with 503 and a Retry-After header.
+ */
+public class DbConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DbConcurrencyLimitFilter.class);
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long acquireTimeoutMillis;
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param maxConcurrent  Requests allowed in flight at once
+     * @param acquireTimeout How long a request waits for a permit before it is rejected
+     */
+    public DbConcurrencyLimitFilter(int maxConcurrent, Duration acquireTimeout) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("Concurrency limit must be positive");
+        }
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeoutMillis = acquireTimeout.toMillis();
+        logger.info("Database-backed requests limited to {} in flight", maxConcurrent);
+    }
+
+    /**
+     * Derive the cap from the JDBC pool: each connection serves {@code requestsPerConnection}
+     * requests, the rest queue here instead of inside the pool.
+     */
+    public static int limitFor(int poolSize, int requestsPerConnection) {
+        return Math.max(1, poolSize * Math.max(1, requestsPerConnection));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.incrementAndGet();
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many concurrent database requests");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getInFlight() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+}
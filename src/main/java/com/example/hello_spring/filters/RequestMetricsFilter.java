@@ -0,0 +1,142 @@
+package com.example.hello_spring.filters;
+
+import com.example.hello_spring.services.RequestMetrics;
+import com.example.hello_spring.services.RequestTimings;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+/**
+ * Times every request and records it against its route (the matched handler pattern, so
+ * {@code /users/search?username=x} and {@code /users/search?username=y} share one histogram).
+ * The response is wrapped to count body bytes, and a {@link RequestTimings} is opened on the
+ * handling thread so database, cache and serialization time can be attributed to the request.
+ */
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    static final String UNMAPPED = "UNMAPPED";
+
+    private final RequestMetrics metrics;
+
+    public RequestMetricsFilter(RequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        CountingResponseWrapper counting = new CountingResponseWrapper(response);
+        RequestTimings timings = RequestTimings.begin();
+        metrics.started();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, counting);
+            failed = false;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            RequestTimings.end();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String route = pattern != null ? pattern.toString() : UNMAPPED;
+            // An exception escaping the chain becomes a 500 further up
+            int status = failed ? 500 : counting.getStatus();
+            metrics.finished(request.getMethod(), route, status, elapsed, counting.bytesWritten, timings);
+        }
+    }
+
+    /**
+     * Counts body bytes (characters, for the writer) without buffering anything itself.
+     */
+    static class CountingResponseWrapper extends HttpServletResponseWrapper {
+
+        long bytesWritten;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        CountingResponseWrapper(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        delegate.write(b);
+                        bytesWritten++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        delegate.write(b, off, len);
+                        bytesWritten += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        delegate.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        delegate.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                        delegate.setWriteListener(listener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                PrintWriter delegate = super.getWriter();
+                writer = new PrintWriter(new Writer() {
+                    @Override
+                    public void write(char[] cbuf, int off, int len) {
+                        delegate.write(cbuf, off, len);
+                        bytesWritten += len;
+                    }
+
+                    @Override
+                    public void write(String str, int off, int len) {
+                        delegate.write(str, off, len);
+                        bytesWritten += len;
+                    }
+
+                    @Override
+                    public void flush() {
+                        delegate.flush();
+                    }
+
+                    @Override
+                    public void close() {
+                        delegate.close();
+                    }
+                });
+            }
+            return writer;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.hello_spring.repositories;
+
+import com.example.hello_spring.services.RequestTimings;
+import org.hibernate.SessionEventListener;
+
+/**
+ * Attributes JDBC statement and batch execution time to the current request's
+ * {@link RequestTimings}. Hibernate creates one instance per session, registered through
+ * {@code hibernate.session.events.auto}; a session is used by one thread at a time, so plain
+ * fields are enough.
+ *
+ * A {@code StatementInspector} only sees the SQL text before execution and cannot time it,
+ * which is why this hooks the session events instead.
+ */
+public class DbTimingSessionListener implements SessionEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private long statementStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestTimings.record(RequestTimings.Phase.DB, System.nanoTime() - statementStart);
+        RequestTimings.countStatement();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestTimings.record(RequestTimings.Phase.DB, System.nanoTime() - batchStart);
+        RequestTimings.countStatement();
+    }
+}
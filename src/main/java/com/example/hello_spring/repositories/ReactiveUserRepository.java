@@ -0,0 +1,84 @@
+package com.example.hello_spring.repositories;
+
+import com.example.hello_spring.entities.User;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Non-blocking access to the {@code users} table over R2DBC, for the reactive user API. Same
+ * table and sequence as {@link UserRepository}; the schema stays owned by Flyway/Hibernate.
+ */
+public class ReactiveUserRepository {
+
+    private static final String COLUMNS = "id, username, email, created_at";
+
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient databaseClient;
+    private final String nextId;
+
+    public ReactiveUserRepository(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+        this.databaseClient = DatabaseClient.create(connectionPool);
+        // Ids come from users_id_seq like JPA's; each raw insert just uses up one pooled block
+        this.nextId = "PostgreSQL".equalsIgnoreCase(connectionPool.getMetadata().getName())
+            ? "nextval('users_id_seq')"
+            : "NEXT VALUE FOR users_id_seq";
+    }
+
+    public Mono<User> findByUsername(String username) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM users WHERE username = :username")
+            .bind("username", username)
+            .map(ReactiveUserRepository::toUser)
+            .one();
+    }
+
+    /**
+     * Keyset page: the next {@code limit} users with an id greater than {@code afterId}.
+     */
+    public Flux<User> findByIdGreaterThan(long afterId, int limit) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM users WHERE id > :afterId ORDER BY id LIMIT :limit")
+            .bind("afterId", afterId)
+            .bind("limit", limit)
+            .map(ReactiveUserRepository::toUser)
+            .all();
+    }
+
+    /**
+     * Insert a user and return it with its generated id. A taken username surfaces as
+     * {@link org.springframework.dao.DataIntegrityViolationException}.
+     */
+    public Mono<User> insert(String username, String email) {
+        User user = new User(username, email);
+        return databaseClient.sql("INSERT INTO users (id, username, email, created_at) VALUES ("
+                + nextId + ", :username, :email, :createdAt)")
+            .bind("username", username)
+            .bind("email", email)
+            .bind("createdAt", user.getCreatedAt())
+            .filter(statement -> statement.returnGeneratedValues("id"))
+            .map(row -> row.get("id", Long.class))
+            .one()
+            .map(id -> {
+                user.setId(id);
+                return user;
+            });
+    }
+
+    /**
+     * Close the connection pool.
+     */
+    public void close() {
+        connectionPool.dispose();
+    }
+
+    private static User toUser(Readable row) {
+        User user = new User(row.get("username", String.class), row.get("email", String.class));
+        user.setId(row.get("id", Long.class));
+        user.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        return user;
+    }
+}
@@ -1,10 +1,22 @@
 package com.example.hello_spring.repositories;
 
 import com.example.hello_spring.entities.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 /**
  * JPA Repository for User entity to demonstrate database operations
@@ -12,11 +24,63 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     
+    /**
+     * Served from Hibernate's query and second-level caches when the user was looked up recently.
+     */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
-    
+
+    /**
+     * Emails are not unique: throws {@code IncorrectResultSizeDataAccessException} when several
+     * users share one. Prefer {@link #findFirstByEmailOrderByIdAsc}.
+     */
     Optional<User> findByEmail(String email);
+
+    /**
+     * The oldest user with the given email, if any.
+     */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    Optional<User> findFirstByEmailOrderByIdAsc(String email);
     
     boolean existsByUsername(String username);
     
     boolean existsByEmail(String email);
+
+    /**
+     * Which of the given usernames are already taken, in a single IN query.
+     */
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Which of the given emails are already in use, in a single IN query.
+     */
+    @Query("select distinct u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Keyset page: the next {@code limit} users with an id greater than {@code afterId}.
+     * Seeks on the primary key index, so the cost of a page does not grow with its depth.
+     */
+    List<User> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    /**
+     * Streams every user in id order using a server-side cursor. Must be consumed inside a
+     * read-only transaction and closed afterwards (PostgreSQL only honours the fetch size
+     * when auto-commit is off).
+     */
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u from User u order by u.id")
+    Stream<User> streamAllOrderById();
+
+    /**
+     * Streams every username and email pair without loading entities, so nothing accumulates
+     * in the persistence context. Same transaction and closing rules as {@link #streamAllOrderById}.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select u.username, u.email from User u")
+    Stream<Object[]> streamUsernamesAndEmails();
 }
\ No newline at end of file
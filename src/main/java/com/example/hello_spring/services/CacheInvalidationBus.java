@@ -0,0 +1,269 @@
+package com.example.hello_spring.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Broadcasts cache key invalidations to the other nodes so a write on one replica does not
+ * leave stale entries on the rest. Invalidated keys are collected in a set and flushed every
+ * {@code flushInterval} (or as soon as {@code maxBatchSize} keys are pending), so a burst of
+ * writes to the same keys becomes one small message. A clear supersedes any pending keys.
+ * Besides cache keys, services publish their own prefixed keys to tell peers about writes
+ * (see {@link UserVersionService}); every listener sees every key.
+ *
+ * Message format: magic int, sender UUID (two longs), clear flag byte, key count int,
+ * then each key as a length-prefixed UTF-8 string.
+ */
+public class CacheInvalidationBus implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private static final int MAGIC = 0x43494e56; // "CINV"
+    private static final int HEADER_SIZE = 4 + 16 + 1 + 4;
+
+    /**
+     * Applies invalidations received from other nodes to local state.
+     */
+    public interface Listener {
+        void invalidate(List<String> keys);
+
+        void clear();
+    }
+
+    private final CacheInvalidationTransport transport;
+    private final long flushIntervalMillis;
+    private final int maxBatchSize;
+    private final UUID nodeId = UUID.randomUUID();
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pendingClear = new AtomicBoolean();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong keysSent = new AtomicLong();
+    private final AtomicLong messagesReceived = new AtomicLong();
+    private final AtomicLong keysReceived = new AtomicLong();
+    private final AtomicLong sendFailures = new AtomicLong();
+
+    /**
+     * @param transport     How messages reach the other nodes
+     * @param flushInterval Longest time an invalidation waits to be sent
+     * @param maxBatchSize  Pending key count that triggers an immediate flush
+     */
+    public CacheInvalidationBus(CacheInvalidationTransport transport, Duration flushInterval, int maxBatchSize) {
+        this.transport = transport;
+        this.flushIntervalMillis = Math.max(1, flushInterval.toMillis());
+        this.maxBatchSize = maxBatchSize;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-invalidation-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start receiving messages and flushing pending invalidations.
+     */
+    public void start() throws IOException {
+        transport.start(this::receive);
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Add a receiver of invalidations from other nodes.
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Queue a key invalidation for the other nodes.
+     */
+    public void publish(String key) {
+        published.incrementAndGet();
+        pending.add(key);
+        if (pending.size() >= maxBatchSize && flushScheduled.compareAndSet(false, true)) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    /**
+     * Queue a full clear for the other nodes.
+     */
+    public void publishClear() {
+        published.incrementAndGet();
+        pendingClear.set(true);
+    }
+
+    /**
+     * Send everything pending now. Called by the flusher; safe to call directly. Keys whose
+     * message could not be sent stay pending for the next flush.
+     */
+    public synchronized void flush() {
+        flushScheduled.set(false);
+        boolean clear = pendingClear.getAndSet(false);
+        List<String> batch = new ArrayList<>();
+        try {
+            if (clear) {
+                // The clear covers every key invalidated before it
+                pending.clear();
+                send(true, List.of());
+                return;
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            int batchBytes = HEADER_SIZE;
+            Iterator<String> it = pending.iterator();
+            while (it.hasNext()) {
+                String key = it.next();
+                int keyBytes = 2 + key.getBytes(StandardCharsets.UTF_8).length;
+                if (!batch.isEmpty() && batchBytes + keyBytes > transport.maxMessageSize()) {
+                    send(false, batch);
+                    batch = new ArrayList<>();
+                    batchBytes = HEADER_SIZE;
+                }
+                // Removed only once it is in the batch, so a failed send can put it back
+                it.remove();
+                batch.add(key);
+                batchBytes += keyBytes;
+            }
+            send(false, batch);
+        } catch (Exception e) {
+            sendFailures.incrementAndGet();
+            if (clear) {
+                pendingClear.set(true);
+            } else {
+                pending.addAll(batch);
+            }
+            logger.warn("Failed to send cache invalidations, retrying with the next flush: {}", e.getMessage());
+        }
+    }
+
+    private void send(boolean clear, List<String> keys) throws IOException {
+        transport.send(encode(nodeId, clear, keys));
+        messagesSent.incrementAndGet();
+        keysSent.addAndGet(keys.size());
+    }
+
+    private void receive(byte[] message) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(message))) {
+            if (in.readInt() != MAGIC) {
+                return;
+            }
+            UUID sender = new UUID(in.readLong(), in.readLong());
+            if (sender.equals(nodeId)) {
+                return;
+            }
+            boolean clear = in.readBoolean();
+            int count = in.readInt();
+            List<String> keys = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                keys.add(in.readUTF());
+            }
+            messagesReceived.incrementAndGet();
+            keysReceived.addAndGet(keys.size());
+
+            for (Listener current : listeners) {
+                if (clear) {
+                    current.clear();
+                } else {
+                    current.invalidate(keys);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Dropping malformed cache invalidation message: {}", e.getMessage());
+        }
+    }
+
+    private static byte[] encode(UUID sender, boolean clear, List<String> keys) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(HEADER_SIZE + keys.size() * 32);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeInt(MAGIC);
+            out.writeLong(sender.getMostSignificantBits());
+            out.writeLong(sender.getLeastSignificantBits());
+            out.writeBoolean(clear);
+            out.writeInt(keys.size());
+            for (String key : keys) {
+                out.writeUTF(key);
+            }
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Flush what is pending, then stop the flusher and the transport.
+     */
+    @Override
+    public void close() {
+        flush();
+        flusher.shutdownNow();
+        transport.close();
+    }
+
+    /**
+     * Snapshot of the bus counters.
+     */
+    public Stats stats() {
+        return new Stats(nodeId.toString(), published.get(), messagesSent.get(), keysSent.get(),
+            messagesReceived.get(), keysReceived.get(), sendFailures.get(), pending.size());
+    }
+
+    /**
+     * Data class for invalidation bus statistics
+     */
+    public static class Stats {
+        private final String nodeId;
+        private final long published;
+        private final long messagesSent;
+        private final long keysSent;
+        private final long messagesReceived;
+        private final long keysReceived;
+        private final long sendFailures;
+        private final long pending;
+
+        public Stats(String nodeId, long published, long messagesSent, long keysSent,
+                     long messagesReceived, long keysReceived, long sendFailures, long pending) {
+            this.nodeId = nodeId;
+            this.published = published;
+            this.messagesSent = messagesSent;
+            this.keysSent = keysSent;
+            this.messagesReceived = messagesReceived;
+            this.keysReceived = keysReceived;
+            this.sendFailures = sendFailures;
+            this.pending = pending;
+        }
+
+        // Getters
+        public String getNodeId() { return nodeId; }
+        public long getPublished() { return published; }
+        public long getMessagesSent() { return messagesSent; }
+        public long getKeysSent() { return keysSent; }
+        public long getMessagesReceived() { return messagesReceived; }
+        public long getKeysReceived() { return keysReceived; }
+        public long getSendFailures() { return sendFailures; }
+        public long getPending() { return pending; }
+    }
+}
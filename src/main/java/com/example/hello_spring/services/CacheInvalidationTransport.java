@@ -0,0 +1,32 @@
+package com.example.hello_spring.services;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Carries encoded cache invalidation messages between nodes for {@link CacheInvalidationBus}.
+ * Delivery is best effort: a lost message only means a peer serves a stale entry until its TTL.
+ */
+public interface CacheInvalidationTransport extends AutoCloseable {
+
+    /**
+     * Start receiving. Every message from a peer is handed to the receiver.
+     */
+    void start(Consumer<byte[]> receiver) throws IOException;
+
+    /**
+     * Send one message to all peers.
+     */
+    void send(byte[] message) throws IOException;
+
+    /**
+     * Largest message the transport can carry in one send, in bytes.
+     */
+    int maxMessageSize();
+
+    /**
+     * Stop receiving and release resources.
+     */
+    @Override
+    void close();
+}
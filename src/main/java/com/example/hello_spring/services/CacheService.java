@@ -1,19 +1,54 @@
 package com.example.hello_spring.services;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Caffeine-based in-memory cache service that provides a simple key-value store.
  * Configured as a Spring singleton service with sensible defaults for TTL and size limits.
+ * Records hit/miss/load/eviction statistics and publishes them as Micrometer meters.
  */
 @Service
-public class CacheService {
+public class CacheService implements MeterBinder {
 
+    /**
+     * Name of the cache in Micrometer meters (tag {@code cache=cacheService}).
+     */
+    public static final String CACHE_NAME = "cacheService";
+
+    private final AsyncCache<String, Object> asyncCache;
     private final Cache<String, Object> cache;
+    private final long maximumWeight;
+    private final OffHeapCacheTier offHeapTier;
+    private volatile CacheInvalidationBus invalidationBus;
 
     /**
      * Constructor initializes the Caffeine cache with sensible defaults:
@@ -22,10 +57,78 @@ public class CacheService {
      * - Size-based eviction when limit is reached
      */
     public CacheService() {
-        this.cache = Caffeine.newBuilder()
-                .expireAfterWrite(10, TimeUnit.MINUTES)  // 10-minute TTL as specified
-                .maximumSize(1000)                       // Reasonable size limit
-                .build();
+        this(1000, DataSize.ofBytes(0), 0, Duration.ofMinutes(10), Duration.ZERO, 16);
+    }
+
+    /**
+     * Constructor for configured sizing. When a byte budget is given (either directly or as a
+     * percentage of the max heap) entries are weighed by their estimated retained size and
+     * evicted once the budget is exceeded; otherwise the cache is bounded by entry count.
+     * The cache is built async so {@link #getOrLoadAsync} can share loads between callers; the
+     * synchronous operations use its blocking view, but load on the calling thread (see
+     * {@link #getOrLoad}).
+     *
+     * @param maximumSize       Maximum number of entries (entry-count mode)
+     * @param maximumWeight     Byte budget; zero to disable
+     * @param maxHeapPercent    Byte budget as a percentage of the max heap; zero to disable
+     * @param expireAfterWrite  TTL since the entry was written; zero to disable
+     * @param expireAfterAccess TTL since the entry was last read or written; zero to disable
+     * @param initialCapacity   Initial hash table capacity
+     */
+    public CacheService(long maximumSize, DataSize maximumWeight, double maxHeapPercent,
+                        Duration expireAfterWrite, Duration expireAfterAccess, int initialCapacity) {
+        this(maximumSize, maximumWeight, maxHeapPercent, expireAfterWrite, expireAfterAccess,
+            initialCapacity, null);
+    }
+
+    /**
+     * Constructor for configured sizing with an optional off-heap second tier. Entries evicted
+     * for size from the on-heap cache are demoted to the off-heap tier, and hits there are
+     * promoted back, so the heap keeps only the hot set.
+     *
+     * @param offHeapTier Second tier, or null to keep everything on heap
+     */
+    @Autowired
+    public CacheService(@Value("${cache.maximum-size:1000}") long maximumSize,
+                        @Value("${cache.maximum-weight:0B}") DataSize maximumWeight,
+                        @Value("${cache.maximum-weight-heap-percent:0}") double maxHeapPercent,
+                        @Value("${cache.expire-after-write:10m}") Duration expireAfterWrite,
+                        @Value("${cache.expire-after-access:0s}") Duration expireAfterAccess,
+                        @Value("${cache.initial-capacity:16}") int initialCapacity,
+                        @Nullable OffHeapCacheTier offHeapTier) {
+        this.offHeapTier = offHeapTier;
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .initialCapacity(initialCapacity)
+                .recordStats();
+        if (offHeapTier != null) {
+            builder = builder.evictionListener((Object key, Object value, RemovalCause cause) -> {
+                // Only demote entries pushed out for space; expired ones are dead anyway
+                if (cause == RemovalCause.SIZE && key != null && value != null) {
+                    offHeapTier.put((String) key, value);
+                }
+            });
+        }
+        if (!expireAfterWrite.isZero() && !expireAfterAccess.isZero()) {
+            builder.expireAfterWrite(expireAfterWrite).expireAfterAccess(expireAfterAccess);
+        } else if (!expireAfterWrite.isZero()) {
+            // Per-entry expiry with the same semantics, so restored entries keep their remaining TTL
+            builder.expireAfter(Expiry.writing((Object key, Object value) -> expireAfterWrite));
+        } else if (!expireAfterAccess.isZero()) {
+            builder.expireAfter(Expiry.accessing((Object key, Object value) -> expireAfterAccess));
+        }
+
+        long budget = maximumWeight.toBytes();
+        if (budget <= 0 && maxHeapPercent > 0) {
+            budget = (long) (Runtime.getRuntime().maxMemory() * maxHeapPercent / 100.0);
+        }
+        if (budget > 0) {
+            this.maximumWeight = budget;
+            this.asyncCache = builder.maximumWeight(budget).weigher(new CacheValueWeigher()).buildAsync();
+        } else {
+            this.maximumWeight = 0;
+            this.asyncCache = builder.maximumSize(maximumSize).buildAsync();
+        }
+        this.cache = asyncCache.synchronous();
     }
 
     /**
@@ -42,6 +145,10 @@ public class CacheService {
             throw new IllegalArgumentException("Cache value cannot be null");
         }
         cache.put(key, value);
+        if (offHeapTier != null) {
+            offHeapTier.remove(key);
+        }
+        publish(key);
     }
 
     /**
@@ -54,7 +161,214 @@ public class CacheService {
         if (key == null) {
             return null;
         }
-        return cache.getIfPresent(key);
+        return RequestTimings.time(RequestTimings.Phase.CACHE, () -> lookup(key));
+    }
+
+    private Object lookup(String key) {
+        Object value = cache.getIfPresent(key);
+        if (value == null && offHeapTier != null) {
+            value = offHeapTier.take(key);
+            if (value != null) {
+                // A put racing the promotion is newer than the demoted copy, so it wins
+                Object current = cache.asMap().putIfAbsent(key, value);
+                if (current != null) {
+                    value = current;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Retrieve a value, computing it with the loader on a miss. Concurrent callers
+     * missing on the same key wait for a single load instead of each computing it.
+     * The loader runs on the calling thread, like a plain Caffeine {@code Cache}: the blocking
+     * view of an async cache would hand it to the common fork-join pool and wait, which takes
+     * database loads off request (or virtual) threads and funnels them through a pool sized
+     * for CPU work. It also runs outside the map's locks: a pending future is published first
+     * and completed afterwards, so a slow load neither blocks other keys in the same hash bin
+     * nor pins a virtual thread to its carrier.
+     * 
+     * @param key    The cache key (must not be null)
+     * @param loader Computes the value for the key; returning null caches nothing
+     * @return The cached or loaded value, or null if the loader returned null
+     */
+    public Object getOrLoad(String key, Function<String, ?> loader) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cache key cannot be null");
+        }
+        if (loader == null) {
+            throw new IllegalArgumentException("Cache loader cannot be null");
+        }
+        Function<String, Object> load = withOffHeap(loader);
+        return RequestTimings.time(RequestTimings.Phase.CACHE, () -> {
+            // Records the hit or miss; the map view below does not
+            CompletableFuture<Object> existing = asyncCache.getIfPresent(key);
+            if (existing != null) {
+                return join(existing);
+            }
+            CompletableFuture<Object> pending = new CompletableFuture<>();
+            existing = asyncCache.asMap().putIfAbsent(key, pending);
+            if (existing != null) {
+                return join(existing);
+            }
+            complete(pending, () -> load.apply(key));
+            return join(pending);
+        });
+    }
+
+    /**
+     * Async variant of {@link #getOrLoad}. The loader runs on the common fork-join pool
+     * and concurrent callers share the same pending future.
+     * 
+     * @param key    The cache key (must not be null)
+     * @param loader Computes the value for the key; returning null caches nothing
+     * @return A future of the cached or loaded value
+     */
+    public CompletableFuture<Object> getOrLoadAsync(String key, Function<String, ?> loader) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cache key cannot be null");
+        }
+        if (loader == null) {
+            throw new IllegalArgumentException("Cache loader cannot be null");
+        }
+        return asyncCache.get(key, withOffHeap(loader));
+    }
+
+    /**
+     * Retrieve several values at once. Keys that are missing are loaded together with
+     * a single call to the bulk loader; concurrent loads of the same keys are shared.
+     * 
+     * @param keys       The cache keys to look up (null keys are not allowed)
+     * @param bulkLoader Loads the missing keys in one call; keys it omits are not cached
+     * @return The values found or loaded, keyed by cache key
+     */
+    public Map<String, Object> getAll(Collection<String> keys,
+                                      Function<Set<String>, Map<String, ?>> bulkLoader) {
+        if (keys == null) {
+            throw new IllegalArgumentException("Cache keys cannot be null");
+        }
+        for (String key : keys) {
+            if (key == null) {
+                throw new IllegalArgumentException("Cache key cannot be null");
+            }
+        }
+        if (bulkLoader == null) {
+            throw new IllegalArgumentException("Cache loader cannot be null");
+        }
+        // Loaded on the calling thread and outside the map's locks, as in getOrLoad
+        Map<String, CompletableFuture<Object>> futures = new HashMap<>();
+        Map<String, CompletableFuture<Object>> owned = new HashMap<>();
+        for (String key : keys) {
+            if (futures.containsKey(key)) {
+                continue;
+            }
+            CompletableFuture<Object> future = asyncCache.getIfPresent(key);
+            if (future == null) {
+                CompletableFuture<Object> pending = new CompletableFuture<>();
+                future = asyncCache.asMap().putIfAbsent(key, pending);
+                if (future == null) {
+                    future = pending;
+                    owned.put(key, pending);
+                }
+            }
+            futures.put(key, future);
+        }
+        if (!owned.isEmpty()) {
+            try {
+                Map<String, Object> loaded = loadAll(owned.keySet(), bulkLoader);
+                // Keys the loader omitted complete with null, which drops their entries
+                owned.forEach((key, pending) -> pending.complete(loaded.get(key)));
+            } catch (RuntimeException | Error e) {
+                owned.values().forEach(pending -> pending.completeExceptionally(e));
+                throw e;
+            }
+        }
+        Map<String, Object> values = new HashMap<>();
+        futures.forEach((key, future) -> {
+            Object value = join(future);
+            if (value != null) {
+                values.put(key, value);
+            }
+        });
+        return values;
+    }
+
+    /**
+     * Complete a future published with {@code putIfAbsent}. The cache then records the load,
+     * re-weighs the entry, and drops it if the load failed or returned null.
+     */
+    private static void complete(CompletableFuture<Object> pending, Supplier<Object> load) {
+        try {
+            pending.complete(load.get());
+        } catch (RuntimeException | Error e) {
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Map<String, Object> loadAll(Set<? extends String> missing,
+                                        Function<Set<String>, Map<String, ?>> bulkLoader) {
+        Set<String> toLoad = Set.copyOf(missing);
+        if (offHeapTier == null) {
+            return new HashMap<>(bulkLoader.apply(toLoad));
+        }
+        // Promote what the off-heap tier still has and load only the rest
+        Map<String, Object> found = new HashMap<>();
+        Set<String> remaining = new HashSet<>();
+        for (String key : toLoad) {
+            Object value = offHeapTier.take(key);
+            if (value != null) {
+                found.put(key, value);
+            } else {
+                remaining.add(key);
+            }
+        }
+        if (!remaining.isEmpty()) {
+            found.putAll(bulkLoader.apply(remaining));
+        }
+        return found;
+    }
+
+    /**
+     * Value of an already completed load, with the loader's exception rethrown as it was.
+     */
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Store several key-value pairs in the cache.
+     * 
+     * @param entries The entries to cache (null keys or values are not allowed)
+     */
+    public void putAll(Map<String, ?> entries) {
+        if (entries == null) {
+            throw new IllegalArgumentException("Cache entries cannot be null");
+        }
+        entries.forEach((key, value) -> {
+            if (key == null) {
+                throw new IllegalArgumentException("Cache key cannot be null");
+            }
+            if (value == null) {
+                throw new IllegalArgumentException("Cache value cannot be null");
+            }
+        });
+        cache.putAll(entries);
+        if (offHeapTier != null) {
+            entries.keySet().forEach(offHeapTier::remove);
+        }
+        entries.keySet().forEach(this::publish);
     }
 
     /**
@@ -66,7 +380,8 @@ public class CacheService {
         if (key == null) {
             return;
         }
-        cache.invalidate(key);
+        invalidateLocal(key);
+        publish(key);
     }
 
     /**
@@ -82,6 +397,225 @@ public class CacheService {
      * Clear all entries from the cache.
      */
     public void clear() {
+        clearLocal();
+        CacheInvalidationBus bus = invalidationBus;
+        if (bus != null) {
+            bus.publishClear();
+        }
+    }
+
+    /**
+     * Connect the cache to other nodes: local writes are broadcast as invalidations,
+     * and invalidations from peers are applied here without being re-broadcast.
+     * 
+     * @param bus The invalidation bus shared with peer nodes
+     */
+    @Autowired(required = false)
+    public void setInvalidationBus(CacheInvalidationBus bus) {
+        bus.addListener(new CacheInvalidationBus.Listener() {
+            @Override
+            public void invalidate(List<String> keys) {
+                keys.forEach(CacheService.this::invalidateLocal);
+            }
+
+            @Override
+            public void clear() {
+                clearLocal();
+            }
+        });
+        this.invalidationBus = bus;
+    }
+
+    /**
+     * Statistics of the invalidation bus.
+     * 
+     * @return Invalidation bus statistics, or null when not connected to peers
+     */
+    public CacheInvalidationBus.Stats invalidationStats() {
+        CacheInvalidationBus bus = invalidationBus;
+        return bus != null ? bus.stats() : null;
+    }
+
+    /**
+     * Receives cache entries from {@link #forEachEntry}.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        /**
+         * @param remaining Time left before the entry expires, or null if it never does
+         */
+        void visit(String key, Object value, @Nullable Duration remaining);
+    }
+
+    /**
+     * Visit every on-heap entry with its remaining time to live. Entries in the off-heap tier
+     * are not visited. The view is weakly consistent: concurrent writes may or may not be seen.
+     * 
+     * @param visitor Called once per live entry
+     */
+    public void forEachEntry(EntryVisitor visitor) {
+        Policy<String, Object> policy = cache.policy();
+        for (Map.Entry<String, Object> entry : cache.asMap().entrySet()) {
+            String key = entry.getKey();
+            Duration remaining;
+            if (policy.expireVariably().isPresent()) {
+                remaining = policy.expireVariably().get().getExpiresAfter(key).orElse(null);
+            } else {
+                Duration afterWrite = remainingFixed(policy.expireAfterWrite(), key);
+                Duration afterAccess = remainingFixed(policy.expireAfterAccess(), key);
+                remaining = afterWrite == null ? afterAccess
+                        : afterAccess == null ? afterWrite
+                        : afterWrite.compareTo(afterAccess) <= 0 ? afterWrite : afterAccess;
+            }
+            if (remaining == null || !remaining.isNegative()) {
+                visitor.visit(key, entry.getValue(), remaining);
+            }
+        }
+    }
+
+    /**
+     * Store an entry recovered from outside the cache (e.g. a snapshot) without broadcasting
+     * an invalidation to peers. The remaining TTL is honoured when a single expiry policy is
+     * configured; with both write and access expiry the entry starts a fresh TTL.
+     * 
+     * @param key       The cache key (must not be null)
+     * @param value     The value to cache (must not be null)
+     * @param remaining Time left before the entry expires, or null to use the configured TTL
+     */
+    public void restore(String key, Object value, @Nullable Duration remaining) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cache key cannot be null");
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Cache value cannot be null");
+        }
+        Optional<Policy.VarExpiration<String, Object>> varExpiration = cache.policy().expireVariably();
+        if (remaining != null && varExpiration.isPresent()) {
+            varExpiration.get().put(key, value, remaining);
+        } else {
+            cache.put(key, value);
+        }
+    }
+
+    private static Duration remainingFixed(Optional<Policy.FixedExpiration<String, Object>> expiration, String key) {
+        return expiration
+                .flatMap(fixed -> fixed.ageOf(key).map(age -> fixed.getExpiresAfter().minus(age)))
+                .orElse(null);
+    }
+
+    // Package-private: reads an entry without recording a hit or miss or touching its expiry
+    Object peekLocal(String key) {
+        return cache.policy().getIfPresentQuietly(key);
+    }
+
+    // Package-private for services that must drop entries without telling the peers
+    void invalidateLocal(String key) {
+        cache.invalidate(key);
+        if (offHeapTier != null) {
+            offHeapTier.remove(key);
+        }
+    }
+
+    private void clearLocal() {
         cache.invalidateAll();
+        if (offHeapTier != null) {
+            offHeapTier.clear();
+        }
+    }
+
+    private void publish(String key) {
+        CacheInvalidationBus bus = invalidationBus;
+        if (bus != null) {
+            bus.publish(key);
+        }
+    }
+
+    /**
+     * Run pending maintenance (evictions, expirations) now instead of lazily.
+     */
+    public void cleanUp() {
+        cache.cleanUp();
+    }
+
+    /**
+     * Estimated heap bytes held by the cache in byte-budget mode.
+     * 
+     * @return Total weight of the cached entries, or -1 when bounded by entry count
+     */
+    public long weightedSize() {
+        if (maximumWeight == 0) {
+            return -1;
+        }
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(-1))
+                .orElse(-1L);
+    }
+
+    /**
+     * Byte budget of the cache.
+     * 
+     * @return Maximum total weight in bytes, or 0 when bounded by entry count
+     */
+    public long maximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Statistics of the off-heap second tier.
+     * 
+     * @return Off-heap tier statistics, or null when the tier is disabled
+     */
+    public OffHeapCacheTier.Stats offHeapStats() {
+        return offHeapTier != null ? offHeapTier.stats() : null;
+    }
+
+    /**
+     * Snapshot of the cache statistics (hits, misses, loads, evictions) since creation.
+     * 
+     * @return Cumulative cache statistics
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Register the cache's size, gets, puts, loads and evictions with Micrometer.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, asyncCache, CACHE_NAME);
+        if (offHeapTier != null) {
+            Gauge.builder("cache.offheap.entries", offHeapTier, tier -> tier.stats().getEntries())
+                .tag("cache", CACHE_NAME)
+                .description("Entries held in the off-heap tier")
+                .register(registry);
+            Gauge.builder("cache.offheap.used", offHeapTier, tier -> tier.stats().getUsedBytes())
+                .tag("cache", CACHE_NAME)
+                .baseUnit("bytes")
+                .description("Live bytes held in the off-heap tier")
+                .register(registry);
+            FunctionCounter.builder("cache.offheap.gets", offHeapTier, tier -> tier.stats().getHits())
+                .tag("cache", CACHE_NAME).tag("result", "hit")
+                .register(registry);
+            FunctionCounter.builder("cache.offheap.gets", offHeapTier, tier -> tier.stats().getMisses())
+                .tag("cache", CACHE_NAME).tag("result", "miss")
+                .register(registry);
+        }
+    }
+
+    /**
+     * Wrap a loader so a miss first checks the off-heap tier and promotes what it finds.
+     * The result completes the entry's pending future, whether the load ran on the caller
+     * ({@link #getOrLoad}) or on the common pool ({@link #getOrLoadAsync}); a put that lands
+     * while it runs replaces that future, so the put wins over the promoted value.
+     */
+    private Function<String, Object> withOffHeap(Function<String, ?> loader) {
+        if (offHeapTier == null) {
+            return loader::apply;
+        }
+        return key -> {
+            Object promoted = offHeapTier.take(key);
+            return promoted != null ? promoted : loader.apply(key);
+        };
     }
 }
\ No newline at end of file
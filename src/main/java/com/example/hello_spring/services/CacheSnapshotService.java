@@ -0,0 +1,277 @@
+package com.example.hello_spring.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Writes the cache to disk so a restarted instance starts warm instead of sending its whole
+ * working set to the database. A snapshot is taken on a schedule and on graceful shutdown,
+ * and loaded while the context starts, i.e. before the application reports ready.
+ *
+ * Only {@link java.io.Serializable} values are written. Each entry keeps its absolute expiry
+ * time, so entries that expired while the instance was down are skipped on load.
+ *
+ * File format: magic int, version int, creation time long, then per entry a key length int,
+ * UTF-8 key, expiry epoch millis long (-1 for none), value length int and serialized value,
+ * terminated by a key length of -1. The file is written to a temporary sibling and moved into
+ * place, so a crash mid-write never leaves a truncated snapshot behind.
+ *
+ * The snapshot's directory is created readable by the owner only, and a snapshot that other
+ * users could have written (group- or world-writable file or directory) is not loaded.
+ */
+@Service
+@ConditionalOnProperty(name = "cache.snapshot.enabled", havingValue = "true")
+public class CacheSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheSnapshotService.class);
+
+    private static final int MAGIC = 0x43534e50; // "CSNP"
+    private static final int VERSION = 1;
+    private static final int END_OF_ENTRIES = -1;
+    private static final long NO_EXPIRY = -1;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+    private final CacheService cacheService;
+    private final Path path;
+
+    /**
+     * @param cacheService The cache to snapshot and restore
+     * @param path         Snapshot file location
+     */
+    public CacheSnapshotService(CacheService cacheService,
+                                @Value("${cache.snapshot.path:${user.home}/.hello-spring/cache.snapshot}") Path path) {
+        this.cacheService = cacheService;
+        this.path = path;
+    }
+
+    /**
+     * Load the snapshot, if there is one, when the application starts.
+     */
+    @PostConstruct
+    public void restoreOnStartup() {
+        try {
+            int restored = load();
+            if (restored > 0) {
+                logger.info("Restored {} cache entries from {}", restored, path);
+            }
+        } catch (IOException | RuntimeException e) {
+            // A bad snapshot only costs a cold start
+            logger.warn("Could not restore cache snapshot from {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Take a snapshot every {@code cache.snapshot.interval-seconds}, so a crash loses at
+     * most one interval of warm-up.
+     */
+    @Scheduled(fixedDelayString = "#{${cache.snapshot.interval-seconds:300} * 1000}",
+               initialDelayString = "#{${cache.snapshot.interval-seconds:300} * 1000}")
+    public void scheduledSave() {
+        try {
+            save();
+        } catch (IOException e) {
+            logger.warn("Failed to write cache snapshot to {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Take a final snapshot during graceful shutdown.
+     */
+    @PreDestroy
+    public void saveOnShutdown() {
+        try {
+            int written = save();
+            logger.info("Wrote {} cache entries to {}", written, path);
+        } catch (IOException e) {
+            logger.warn("Failed to write cache snapshot to {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Write every serializable cache entry to the snapshot file, replacing the previous one.
+     *
+     * @return Number of entries written
+     */
+    public synchronized int save() throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null && !Files.isDirectory(parent)) {
+            if (isPosix(parent)) {
+                Files.createDirectories(parent, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+            } else {
+                Files.createDirectories(parent);
+            }
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        int written;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis());
+            int[] count = {0};
+            long now = System.currentTimeMillis();
+            cacheService.forEachEntry((key, value, remaining) -> {
+                byte[] bytes = CacheValueSerializer.serialize(value);
+                if (bytes == null) {
+                    return;
+                }
+                byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                if (keyBytes.length > WRITE_BUFFER_SIZE - 16) {
+                    return;
+                }
+                long expiresAt = remaining != null ? now + remaining.toMillis() : NO_EXPIRY;
+                try {
+                    ensureSpace(channel, buffer, 4 + keyBytes.length + 8 + 4);
+                    buffer.putInt(keyBytes.length).put(keyBytes).putLong(expiresAt).putInt(bytes.length);
+                    if (bytes.length > buffer.capacity()) {
+                        // Too large to stage; write it straight through
+                        drain(channel, buffer);
+                        writeFully(channel, ByteBuffer.wrap(bytes));
+                    } else {
+                        ensureSpace(channel, buffer, bytes.length);
+                        buffer.put(bytes);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+            });
+            ensureSpace(channel, buffer, 4);
+            buffer.putInt(END_OF_ENTRIES);
+            drain(channel, buffer);
+            channel.force(false);
+            written = count[0];
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(temp);
+            throw e.getCause();
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return written;
+    }
+
+    /**
+     * Load the snapshot file into the cache. Entries that have expired since the snapshot
+     * was taken, or whose value can no longer be deserialized, are skipped.
+     *
+     * @return Number of entries restored; zero when there is no snapshot
+     */
+    public int load() throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return 0;
+        }
+        checkNotShared(path);
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            checkNotShared(parent);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 16 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a cache snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported cache snapshot version " + version);
+            }
+            buffer.getLong(); // creation time
+
+            long now = System.currentTimeMillis();
+            int restored = 0;
+            int skipped = 0;
+            try {
+                int keyLength;
+                while ((keyLength = buffer.getInt()) != END_OF_ENTRIES) {
+                    byte[] keyBytes = new byte[keyLength];
+                    buffer.get(keyBytes);
+                    long expiresAt = buffer.getLong();
+                    int valueLength = buffer.getInt();
+                    if (expiresAt != NO_EXPIRY && expiresAt <= now) {
+                        // Skip expired entries without touching their bytes
+                        buffer.position(buffer.position() + valueLength);
+                        skipped++;
+                        continue;
+                    }
+                    byte[] valueBytes = new byte[valueLength];
+                    buffer.get(valueBytes);
+                    Object value = CacheValueSerializer.deserialize(valueBytes);
+                    if (value == null) {
+                        skipped++;
+                        continue;
+                    }
+                    Duration remaining = expiresAt != NO_EXPIRY ? Duration.ofMillis(expiresAt - now) : null;
+                    cacheService.restore(new String(keyBytes, StandardCharsets.UTF_8), value, remaining);
+                    restored++;
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+                // Keep what was read before the damaged part
+                logger.warn("Cache snapshot {} is truncated or corrupt; restored {} entries before the damage", path, restored);
+            }
+            logger.debug("Skipped {} expired or unreadable snapshot entries", skipped);
+            return restored;
+        }
+    }
+
+    private static void checkNotShared(Path file) throws IOException {
+        if (!isPosix(file)) {
+            return;
+        }
+        Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(file);
+        if (permissions.contains(PosixFilePermission.GROUP_WRITE) || permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+            throw new IOException(file + " is writable by other users; not loading the snapshot from it");
+        }
+    }
+
+    private static boolean isPosix(Path file) {
+        Path existing = file.toAbsolutePath();
+        while (existing != null && !Files.exists(existing)) {
+            existing = existing.getParent();
+        }
+        return existing != null && Files.getFileAttributeView(existing, PosixFileAttributeView.class) != null;
+    }
+
+    private static void ensureSpace(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain(channel, buffer);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        writeFully(channel, buffer);
+        buffer.clear();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
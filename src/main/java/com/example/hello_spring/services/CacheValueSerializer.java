@@ -0,0 +1,86 @@
+package com.example.hello_spring.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+
+/**
+ * Java serialization of cache values for the tiers that keep them outside the heap
+ * ({@link OffHeapCacheTier}, {@link CacheSnapshotService}).
+ *
+ * Reading is limited to the value types the application caches: its entities plus the
+ * {@code java.lang}, {@code java.util}, {@code java.time} and {@code java.math} basics they
+ * are built from, with bounded depth, references and array sizes. A snapshot file is read
+ * from disk, so anything else in it is rejected rather than instantiated.
+ */
+final class CacheValueSerializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheValueSerializer.class);
+
+    private static final ObjectInputFilter FILTER = ObjectInputFilter.Config.createFilter(
+        "maxdepth=20;maxrefs=100000;maxarray=16777216;maxbytes=67108864;"
+            + "com.example.hello_spring.entities.*;java.lang.*;java.util.*;java.time.*;java.math.*;!*");
+
+    private CacheValueSerializer() {
+    }
+
+    /**
+     * @return The serialized value, or null if it is not serializable
+     */
+    static byte[] serialize(Object value) {
+        if (!(value instanceof Serializable)) {
+            return null;
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            // Serializable type with a non-serializable field
+            logger.debug("Value of type {} cannot be serialized: {}", value.getClass().getName(), e.getMessage());
+            return null;
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * @return The value, or null if the bytes cannot be read back or hold a type outside the allowlist
+     */
+    static Object deserialize(byte[] bytes) {
+        try (ObjectInputStream in = new AppObjectInputStream(new ByteArrayInputStream(bytes))) {
+            in.setObjectInputFilter(FILTER);
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            logger.debug("Dropping unreadable cache value: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Resolves classes through the application's class loader, so values still deserialize
+     * when application classes live in a child loader (e.g. devtools restarts).
+     */
+    private static final class AppObjectInputStream extends ObjectInputStream {
+
+        AppObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(desc.getName(), false, CacheValueSerializer.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(desc);
+            }
+        }
+    }
+}
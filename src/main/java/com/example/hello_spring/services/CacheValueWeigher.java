@@ -0,0 +1,160 @@
+package com.example.hello_spring.services;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates the retained heap size of a cache entry in bytes, for byte-budget eviction.
+ * Assumes a 64-bit JVM with compressed oops (12-byte headers, 4-byte references, 8-byte
+ * alignment). Common value types are sized directly; other objects are walked reflectively
+ * up to a small depth. The result is an estimate meant for relative weighting, not an exact
+ * measurement.
+ */
+final class CacheValueWeigher implements Weigher<String, Object> {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int MAX_DEPTH = 4;
+    // Caffeine's own node per entry (key/value references, timestamps, links)
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private static final Map<Class<?>, Field[]> FIELDS = new ConcurrentHashMap<>();
+
+    @Override
+    public int weigh(String key, Object value) {
+        long bytes = ENTRY_OVERHEAD + sizeOf(key, 0, new IdentityHashMap<>());
+        bytes += sizeOf(value, 0, new IdentityHashMap<>());
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Estimate the retained size of a single object graph in bytes.
+     */
+    static long estimate(Object value) {
+        return sizeOf(value, 0, new IdentityHashMap<>());
+    }
+
+    private static long sizeOf(Object value, int depth, IdentityHashMap<Object, Boolean> seen) {
+        if (value == null || seen.put(value, Boolean.TRUE) != null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            // String object + backing byte[] (Latin-1 compact strings use one byte per char)
+            String s = (String) value;
+            boolean latin1 = s.chars().allMatch(c -> c < 256);
+            return align(OBJECT_HEADER + 12) + align(ARRAY_HEADER + (long) s.length() * (latin1 ? 1 : 2));
+        }
+        if (value instanceof Integer || value instanceof Float || value instanceof Short
+                || value instanceof Byte || value instanceof Character || value instanceof Boolean) {
+            return 16;
+        }
+        if (value instanceof Long || value instanceof Double) {
+            return 24;
+        }
+        Class<?> type = value.getClass();
+        if (type.isArray()) {
+            return arraySize(value, type.getComponentType(), depth, seen);
+        }
+        if (depth >= MAX_DEPTH) {
+            return align(OBJECT_HEADER + REFERENCE);
+        }
+        if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            long size = align(OBJECT_HEADER + 16) + align(ARRAY_HEADER + (long) collection.size() * REFERENCE);
+            for (Object element : collection) {
+                size += sizeOf(element, depth + 1, seen);
+            }
+            return size;
+        }
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            // Table plus one 32-byte node per mapping
+            long size = align(OBJECT_HEADER + 32) + align(ARRAY_HEADER + (long) map.size() * 2 * REFERENCE);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += 32 + sizeOf(entry.getKey(), depth + 1, seen) + sizeOf(entry.getValue(), depth + 1, seen);
+            }
+            return size;
+        }
+        return objectSize(value, type, depth, seen);
+    }
+
+    private static long arraySize(Object array, Class<?> component, int depth,
+                                  IdentityHashMap<Object, Boolean> seen) {
+        int length = Array.getLength(array);
+        if (component.isPrimitive()) {
+            return align(ARRAY_HEADER + (long) length * primitiveSize(component));
+        }
+        long size = align(ARRAY_HEADER + (long) length * REFERENCE);
+        if (depth < MAX_DEPTH) {
+            for (int i = 0; i < length; i++) {
+                size += sizeOf(Array.get(array, i), depth + 1, seen);
+            }
+        }
+        return size;
+    }
+
+    private static long objectSize(Object value, Class<?> type, int depth,
+                                   IdentityHashMap<Object, Boolean> seen) {
+        long shallow = OBJECT_HEADER;
+        long deep = 0;
+        for (Field field : fieldsOf(type)) {
+            Class<?> fieldType = field.getType();
+            if (fieldType.isPrimitive()) {
+                shallow += primitiveSize(fieldType);
+                continue;
+            }
+            shallow += REFERENCE;
+            try {
+                deep += sizeOf(field.get(value), depth + 1, seen);
+            } catch (IllegalAccessException e) {
+                // Field is not readable; count the reference only
+            }
+        }
+        return align(shallow) + deep;
+    }
+
+    private static Field[] fieldsOf(Class<?> type) {
+        return FIELDS.computeIfAbsent(type, t -> {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = t; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    // Primitive fields only need their type; references need to be readable
+                    if (field.getType().isPrimitive() || field.trySetAccessible()) {
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields.toArray(new Field[0]);
+        });
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
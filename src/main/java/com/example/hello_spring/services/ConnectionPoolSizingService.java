@@ -0,0 +1,431 @@
+package com.example.hello_spring.services;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sizes the Hikari pool to the load instead of a fixed {@code maximum-pool-size}. Every
+ * {@code db.pool.adaptive.sample-interval-millis} it samples active, idle and total connections,
+ * threads waiting for one, and connection acquire times (Hikari's {@code hikaricp.connections.acquire}
+ * timer: p50/p95/p99 over its recent window, plus the mean of the interval). Every
+ * {@code samples-per-decision} samples it decides on the pool's maximum size:
+ * <ul>
+ *   <li>grow when acquire time is above {@code acquire-target} and the pool is saturated (all
+ *       connections open and threads waiting); the step scales with how far latency overshoots, up
+ *       to doubling, and covers at least the threads that were waiting;</li>
+ *   <li>shrink when acquire time is well under target (below half), nobody waited, and the
+ *       busiest moment left connections unused; each step gives back half of the unused headroom,
+ *       and only once {@code shrink-cooldown} has passed since the last grow, to avoid flapping;</li>
+ *   <li>otherwise hold.</li>
+ * </ul>
+ * The size always stays within {@code min-size} and {@code max-size}. Minimum idle is set to
+ * {@code min-size}, so after a shrink Hikari closes connections that stay idle for its
+ * {@code idle-timeout}. Acquire times only say that requests waited for a connection; if the
+ * database itself is the bottleneck, more connections will not help, so keep {@code max-size}
+ * within what the database serves well.
+ */
+@Service
+@ConditionalOnProperty(name = "db.pool.adaptive.enabled", havingValue = "true")
+public class ConnectionPoolSizingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPoolSizingService.class);
+
+    private final HikariDataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private final int minSize;
+    private final int maxSize;
+    private final double acquireTargetMillis;
+    private final int samplesPerDecision;
+    private final long shrinkCooldownMillis;
+    private final int historySize;
+
+    private final Deque<Decision> decisions = new ArrayDeque<>();
+    private Window window = new Window();
+    private Timer acquireTimer;
+    private Counter timeoutCounter;
+    private long lastAcquireCount;
+    private double lastAcquireNanos;
+    private double lastTimeouts;
+    private long lastGrowAt;
+    private long grows;
+    private long shrinks;
+
+    private volatile Sample latest;
+    private volatile Decision lastEvaluation;
+
+    /**
+     * @param minSize            Smallest maximum pool size the controller sets, also the pool's minimum idle
+     * @param maxSize            Largest maximum pool size the controller sets
+     * @param acquireTarget      Connection acquire time (p95) the controller aims to stay under
+     * @param samplesPerDecision Samples aggregated into one sizing decision
+     * @param shrinkCooldown     Time after a grow before the pool may shrink again
+     * @param historySize        Resizing decisions kept for {@link #status()}
+     */
+    public ConnectionPoolSizingService(DataSource dataSource, MeterRegistry meterRegistry,
+                                       @Value("${db.pool.adaptive.min-size:2}") int minSize,
+                                       @Value("${db.pool.adaptive.max-size:20}") int maxSize,
+                                       @Value("${db.pool.adaptive.acquire-target:10ms}") Duration acquireTarget,
+                                       @Value("${db.pool.adaptive.samples-per-decision:5}") int samplesPerDecision,
+                                       @Value("${db.pool.adaptive.shrink-cooldown:60s}") Duration shrinkCooldown,
+                                       @Value("${db.pool.adaptive.history-size:50}") int historySize) throws SQLException {
+        if (minSize < 1 || maxSize < minSize) {
+            throw new IllegalArgumentException("Adaptive pool bounds must satisfy 1 <= min-size <= max-size");
+        }
+        if (samplesPerDecision < 1 || acquireTarget.isNegative() || acquireTarget.isZero()) {
+            throw new IllegalArgumentException("Adaptive pool needs a positive acquire target and samples per decision");
+        }
+        if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+            throw new IllegalArgumentException("Adaptive pool sizing needs a Hikari DataSource");
+        }
+        this.dataSource = dataSource.unwrap(HikariDataSource.class);
+        this.meterRegistry = meterRegistry;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTargetMillis = acquireTarget.toNanos() / 1_000_000.0;
+        this.samplesPerDecision = samplesPerDecision;
+        this.shrinkCooldownMillis = shrinkCooldown.toMillis();
+        this.historySize = historySize;
+    }
+
+    /**
+     * Bring the configured pool size within bounds and let idle connections go down to min-size.
+     */
+    @PostConstruct
+    public void init() {
+        HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+        int size = Math.max(minSize, Math.min(config.getMaximumPoolSize(), maxSize));
+        config.setMaximumPoolSize(size);
+        config.setMinimumIdle(minSize);
+        logger.info("Adaptive connection pool: size {} within [{}, {}], acquire target {} ms",
+            size, minSize, maxSize, acquireTargetMillis);
+    }
+
+    /**
+     * Take a sample every {@code db.pool.adaptive.sample-interval-millis}, and decide on the pool
+     * size once enough samples are in.
+     */
+    @Scheduled(fixedRateString = "${db.pool.adaptive.sample-interval-millis:1000}",
+               initialDelayString = "${db.pool.adaptive.sample-interval-millis:1000}")
+    public synchronized void sample() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            return; // not started yet
+        }
+        Sample sample = takeSample(pool);
+        latest = sample;
+        window.add(sample);
+        if (window.samples >= samplesPerDecision) {
+            decide(window, System.currentTimeMillis());
+            window = new Window();
+        }
+    }
+
+    private Sample takeSample(HikariPoolMXBean pool) {
+        if (acquireTimer == null) {
+            acquireTimer = meterRegistry.find("hikaricp.connections.acquire")
+                .tag("pool", dataSource.getPoolName()).timer();
+            timeoutCounter = meterRegistry.find("hikaricp.connections.timeout")
+                .tag("pool", dataSource.getPoolName()).counter();
+        }
+        long acquisitions = 0;
+        double meanMillis = 0;
+        Double p50 = null;
+        Double p95 = null;
+        Double p99 = null;
+        if (acquireTimer != null) {
+            long count = acquireTimer.count();
+            double totalNanos = acquireTimer.totalTime(TimeUnit.NANOSECONDS);
+            acquisitions = count - lastAcquireCount;
+            meanMillis = acquisitions > 0 ? (totalNanos - lastAcquireNanos) / acquisitions / 1_000_000.0 : 0;
+            lastAcquireCount = count;
+            lastAcquireNanos = totalNanos;
+            // Only published when percentiles are configured for the timer (see application.properties)
+            HistogramSnapshot snapshot = acquireTimer.takeSnapshot();
+            for (ValueAtPercentile value : snapshot.percentileValues()) {
+                double millis = value.value(TimeUnit.MILLISECONDS);
+                if (value.percentile() == 0.5) {
+                    p50 = millis;
+                } else if (value.percentile() == 0.95) {
+                    p95 = millis;
+                } else if (value.percentile() == 0.99) {
+                    p99 = millis;
+                }
+            }
+        }
+        long timeouts = 0;
+        if (timeoutCounter != null) {
+            double total = timeoutCounter.count();
+            timeouts = (long) (total - lastTimeouts);
+            lastTimeouts = total;
+        }
+        return new Sample(Instant.now().toString(), pool.getActiveConnections(), pool.getIdleConnections(),
+            pool.getTotalConnections(), pool.getThreadsAwaitingConnection(), acquisitions, meanMillis,
+            p50, p95, p99, timeouts);
+    }
+
+    void decide(Window window, long now) {
+        HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+        int size = config.getMaximumPoolSize();
+        Decision decision = evaluate(size, window, now);
+        lastEvaluation = decision;
+        if (decision.getToSize() == size) {
+            return;
+        }
+        config.setMaximumPoolSize(decision.getToSize());
+        if (decision.getToSize() > size) {
+            lastGrowAt = now;
+            grows++;
+        } else {
+            shrinks++;
+        }
+        logger.info("Connection pool {} {} -> {}: {}", decision.getAction(), size, decision.getToSize(),
+            decision.getReason());
+        synchronized (decisions) {
+            decisions.addFirst(decision);
+            while (decisions.size() > historySize) {
+                decisions.removeLast();
+            }
+        }
+    }
+
+    /**
+     * The sizing decision for a pool of {@code size} connections after {@code window}.
+     */
+    Decision evaluate(int size, Window window, long now) {
+        double latency = window.latencyMillis();
+        String time = Instant.ofEpochMilli(now).toString();
+        boolean saturated = window.peakPending > 0 || window.timeouts > 0;
+        if ((latency > acquireTargetMillis || window.timeouts > 0) && saturated) {
+            if (size >= maxSize) {
+                return new Decision(time, "hold", size, size, latency, window,
+                    String.format("acquire time %.1f ms over target %.1f ms, but already at max-size %d",
+                        latency, acquireTargetMillis, maxSize));
+            }
+            double overshoot = Math.min(1.0, (latency - acquireTargetMillis) / acquireTargetMillis);
+            int step = Math.max(1, Math.max((int) Math.ceil(size * overshoot), Math.min(window.peakPending, size)));
+            int target = Math.min(maxSize, size + step);
+            return new Decision(time, "grow", size, target, latency, window,
+                String.format("acquire time %.1f ms over target %.1f ms with %d threads waiting and %d timeouts",
+                    latency, acquireTargetMillis, window.peakPending, window.timeouts));
+        }
+        int needed = Math.max(minSize, window.peakActive + 1);
+        if (latency <= acquireTargetMillis / 2 && !saturated && needed < size) {
+            if (now - lastGrowAt < shrinkCooldownMillis) {
+                return new Decision(time, "hold", size, size, latency, window,
+                    "load is low, but the pool grew less than shrink-cooldown ago");
+            }
+            int target = size - Math.max(1, (size - needed) / 2);
+            return new Decision(time, "shrink", size, target, latency, window,
+                String.format("acquire time %.1f ms under target %.1f ms and at most %d of %d connections busy",
+                    latency, acquireTargetMillis, window.peakActive, size));
+        }
+        return new Decision(time, "hold", size, size, latency, window,
+            String.format("acquire time %.1f ms against target %.1f ms", latency, acquireTargetMillis));
+    }
+
+    public Status status() {
+        HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+        List<Decision> history;
+        synchronized (decisions) {
+            history = new ArrayList<>(decisions);
+        }
+        long growCount;
+        long shrinkCount;
+        synchronized (this) {
+            growCount = grows;
+            shrinkCount = shrinks;
+        }
+        return new Status(minSize, maxSize, acquireTargetMillis, config.getMaximumPoolSize(),
+            config.getMinimumIdle(), growCount, shrinkCount, latest, lastEvaluation, history);
+    }
+
+    /**
+     * Samples aggregated for one decision
+     */
+    static class Window {
+        int samples;
+        int peakActive;
+        int peakPending;
+        long acquisitions;
+        double acquireNanos;
+        Double p95Millis;
+        long timeouts;
+
+        void add(Sample sample) {
+            samples++;
+            peakActive = Math.max(peakActive, sample.getActive());
+            peakPending = Math.max(peakPending, sample.getPending());
+            acquisitions += sample.getAcquisitions();
+            acquireNanos += sample.getAcquireMeanMillis() * sample.getAcquisitions() * 1_000_000.0;
+            p95Millis = sample.getAcquireP95Millis();
+            timeouts += sample.getTimeouts();
+        }
+
+        /**
+         * Acquire time the decision goes by: the p95 when the timer publishes one, else the mean
+         * over the window; zero when no connection was acquired.
+         */
+        double latencyMillis() {
+            if (acquisitions == 0) {
+                return 0;
+            }
+            return p95Millis == null ? acquireNanos / acquisitions / 1_000_000.0 : p95Millis;
+        }
+    }
+
+    /**
+     * Pool state at one point in time; acquisitions, mean and timeouts cover the interval since
+     * the previous sample, percentiles the timer's recent window (null when not published)
+     */
+    public static class Sample {
+        private final String time;
+        private final int active;
+        private final int idle;
+        private final int total;
+        private final int pending;
+        private final long acquisitions;
+        private final double acquireMeanMillis;
+        private final Double acquireP50Millis;
+        private final Double acquireP95Millis;
+        private final Double acquireP99Millis;
+        private final long timeouts;
+
+        public Sample(String time, int active, int idle, int total, int pending, long acquisitions,
+                      double acquireMeanMillis, Double acquireP50Millis, Double acquireP95Millis,
+                      Double acquireP99Millis, long timeouts) {
+            this.time = time;
+            this.active = active;
+            this.idle = idle;
+            this.total = total;
+            this.pending = pending;
+            this.acquisitions = acquisitions;
+            this.acquireMeanMillis = acquireMeanMillis;
+            this.acquireP50Millis = acquireP50Millis;
+            this.acquireP95Millis = acquireP95Millis;
+            this.acquireP99Millis = acquireP99Millis;
+            this.timeouts = timeouts;
+        }
+
+        // Getters
+        public String getTime() { return time; }
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getTotal() { return total; }
+        public int getPending() { return pending; }
+        public long getAcquisitions() { return acquisitions; }
+        public double getAcquireMeanMillis() { return acquireMeanMillis; }
+        public Double getAcquireP50Millis() { return acquireP50Millis; }
+        public Double getAcquireP95Millis() { return acquireP95Millis; }
+        public Double getAcquireP99Millis() { return acquireP99Millis; }
+        public long getTimeouts() { return timeouts; }
+    }
+
+    /**
+     * One sizing decision and what it was based on
+     */
+    public static class Decision {
+        private final String time;
+        private final String action;
+        private final int fromSize;
+        private final int toSize;
+        private final double acquireMillis;
+        private final int peakActive;
+        private final int peakPending;
+        private final long acquisitions;
+        private final long timeouts;
+        private final String reason;
+
+        Decision(String time, String action, int fromSize, int toSize, double acquireMillis, Window window,
+                 String reason) {
+            this.time = time;
+            this.action = action;
+            this.fromSize = fromSize;
+            this.toSize = toSize;
+            this.acquireMillis = acquireMillis;
+            this.peakActive = window.peakActive;
+            this.peakPending = window.peakPending;
+            this.acquisitions = window.acquisitions;
+            this.timeouts = window.timeouts;
+            this.reason = reason;
+        }
+
+        // Getters
+        public String getTime() { return time; }
+        public String getAction() { return action; }
+        public int getFromSize() { return fromSize; }
+        public int getToSize() { return toSize; }
+        public double getAcquireMillis() { return acquireMillis; }
+        public int getPeakActive() { return peakActive; }
+        public int getPeakPending() { return peakPending; }
+        public long getAcquisitions() { return acquisitions; }
+        public long getTimeouts() { return timeouts; }
+        public String getReason() { return reason; }
+    }
+
+    /**
+     * Bounds, current pool size, latest sample and recent resizing decisions (newest first)
+     */
+    public static class Status {
+        private final int minSize;
+        private final int maxSize;
+        private final double acquireTargetMillis;
+        private final int maximumPoolSize;
+        private final int minimumIdle;
+        private final long grows;
+        private final long shrinks;
+        private final Sample latest;
+        private final Decision lastEvaluation;
+        private final List<Decision> decisions;
+
+        public Status(int minSize, int maxSize, double acquireTargetMillis, int maximumPoolSize, int minimumIdle,
+                      long grows, long shrinks, Sample latest, Decision lastEvaluation, List<Decision> decisions) {
+            this.minSize = minSize;
+            this.maxSize = maxSize;
+            this.acquireTargetMillis = acquireTargetMillis;
+            this.maximumPoolSize = maximumPoolSize;
+            this.minimumIdle = minimumIdle;
+            this.grows = grows;
+            this.shrinks = shrinks;
+            this.latest = latest;
+            this.lastEvaluation = lastEvaluation;
+            this.decisions = decisions;
+        }
+
+        // Getters
+        public int getMinSize() { return minSize; }
+        public int getMaxSize() { return maxSize; }
+        public double getAcquireTargetMillis() { return acquireTargetMillis; }
+        public int getMaximumPoolSize() { return maximumPoolSize; }
+        public int getMinimumIdle() { return minimumIdle; }
+        public long getGrows() { return grows; }
+        public long getShrinks() { return shrinks; }
+        public Sample getLatest() { return latest; }
+        /** Latest decision, including "hold". */
+        public Decision getLastEvaluation() { return lastEvaluation; }
+        /** Decisions that changed the size. */
+        public List<Decision> getDecisions() { return decisions; }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.hello_spring.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Continuous, low-overhead profiling with JDK Flight Recorder. A {@link RecordingStream}
+ * samples running threads, allocations and contended monitor entries, and every event is
+ * folded into rolling top-N tables (hot methods, allocating frames, contended monitors)
+ * covering the last {@code window}. The stream keeps the raw recording on disk for the same
+ * period so it can be dumped to a {@code .jfr} file for offline analysis.
+ */
+@Service
+@ConditionalOnProperty(name = "profiling.jfr.enabled", havingValue = "true")
+public class JfrProfilingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JfrProfilingService.class);
+
+    private static final int SLOTS = 10;
+
+    private final Duration window;
+    private final Duration samplePeriod;
+    private final Duration contentionThreshold;
+    private final RollingTopN hotMethods;
+    private final RollingTopN allocations;
+    private final RollingTopN contention;
+    private RecordingStream stream;
+    private long startedAt;
+
+    /**
+     * @param window              Period covered by the tables and by the raw recording
+     * @param samplePeriod        Interval between execution samples of each thread
+     * @param contentionThreshold Shortest monitor wait that is recorded
+     */
+    public JfrProfilingService(@Value("${profiling.jfr.window:5m}") Duration window,
+                               @Value("${profiling.jfr.sample-period:20ms}") Duration samplePeriod,
+                               @Value("${profiling.jfr.contention-threshold:10ms}") Duration contentionThreshold) {
+        this.window = window;
+        this.samplePeriod = samplePeriod;
+        this.contentionThreshold = contentionThreshold;
+        this.hotMethods = new RollingTopN(window.toMillis(), SLOTS);
+        this.allocations = new RollingTopN(window.toMillis(), SLOTS);
+        this.contention = new RollingTopN(window.toMillis(), SLOTS);
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.setMaxAge(window);
+        stream.enable("jdk.ExecutionSample").withPeriod(samplePeriod).withStackTrace();
+        stream.enable("jdk.ObjectAllocationSample").with("throttle", "150/s").withStackTrace();
+        stream.enable("jdk.JavaMonitorEnter").withThreshold(contentionThreshold).withStackTrace();
+
+        stream.onEvent("jdk.ExecutionSample", event ->
+            hotMethods.add(topFrame(event.getStackTrace()), 1, now(event)));
+        stream.onEvent("jdk.ObjectAllocationSample", event ->
+            allocations.add(topFrame(event.getStackTrace()) + " (" + className(event, "objectClass") + ")",
+                event.getLong("weight"), now(event)));
+        stream.onEvent("jdk.JavaMonitorEnter", event ->
+            contention.add(className(event, "monitorClass") + " at " + topFrame(event.getStackTrace()),
+                event.getDuration().toMillis(), now(event)));
+
+        stream.startAsync();
+        startedAt = System.currentTimeMillis();
+        logger.info("JFR profiling started: sampling every {}, window {}", samplePeriod, window);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * Current top-N tables.
+     *
+     * @param limit Rows per table
+     */
+    public ProfileReport report(int limit) {
+        long now = System.currentTimeMillis();
+        return new ProfileReport(window.toSeconds(), startedAt,
+            rows(hotMethods.top(limit, now)),
+            rows(allocations.top(limit, now)),
+            rows(contention.top(limit, now)));
+    }
+
+    /**
+     * Write the raw recording of the last {@code window} to a temporary {@code .jfr} file.
+     * The caller deletes the file when done with it.
+     */
+    public Path dump() throws IOException {
+        Path file = Files.createTempFile("hello-spring-", ".jfr");
+        try {
+            stream.dump(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return file;
+    }
+
+    private static long now(RecordedEvent event) {
+        return event.getEndTime().toEpochMilli();
+    }
+
+    private static String topFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "<unknown>";
+        }
+        RecordedFrame frame = stackTrace.getFrames().get(0);
+        if (frame.getMethod() == null) {
+            return "<unknown>";
+        }
+        String method = frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+        return frame.getLineNumber() > 0 ? method + ":" + frame.getLineNumber() : method;
+    }
+
+    private static String className(RecordedEvent event, String field) {
+        RecordedClass recordedClass = event.getClass(field);
+        return recordedClass != null ? recordedClass.getName() : "<unknown>";
+    }
+
+    private static List<TopEntry> rows(RollingTopN.Top top) {
+        List<TopEntry> rows = new ArrayList<>(top.entries.size());
+        for (Map.Entry<String, Long> entry : top.entries) {
+            double percentage = top.total > 0 ? Math.round(entry.getValue() * 10000.0 / top.total) / 100.0 : 0;
+            rows.add(new TopEntry(entry.getKey(), entry.getValue(), percentage));
+        }
+        return rows;
+    }
+
+    /**
+     * Data class for the profiling tables
+     */
+    public static class ProfileReport {
+        private final long windowSeconds;
+        private final long startedAt;
+        private final List<TopEntry> hotMethods;
+        private final List<TopEntry> allocations;
+        private final List<TopEntry> contendedMonitors;
+
+        public ProfileReport(long windowSeconds, long startedAt, List<TopEntry> hotMethods,
+                             List<TopEntry> allocations, List<TopEntry> contendedMonitors) {
+            this.windowSeconds = windowSeconds;
+            this.startedAt = startedAt;
+            this.hotMethods = hotMethods;
+            this.allocations = allocations;
+            this.contendedMonitors = contendedMonitors;
+        }
+
+        // Getters
+        public long getWindowSeconds() { return windowSeconds; }
+        public long getStartedAt() { return startedAt; }
+        public List<TopEntry> getHotMethods() { return hotMethods; }
+        public List<TopEntry> getAllocations() { return allocations; }
+        public List<TopEntry> getContendedMonitors() { return contendedMonitors; }
+    }
+
+    /**
+     * Data class for one table row. The value is execution samples for hot methods, sampled
+     * bytes for allocations and blocked milliseconds for contended monitors.
+     */
+    public static class TopEntry {
+        private final String frame;
+        private final long value;
+        private final double percentage;
+
+        public TopEntry(String frame, long value, double percentage) {
+            this.frame = frame;
+            this.value = value;
+            this.percentage = percentage;
+        }
+
+        // Getters
+        public String getFrame() { return frame; }
+        public long getValue() { return value; }
+        public double getPercentage() { return percentage; }
+    }
+}
@@ -0,0 +1,393 @@
+package com.example.hello_spring.services;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Samples JVM telemetry (heap totals, memory pools, GC, allocation rate, threads and NIO
+ * buffer pools) on a background schedule. Each tick only writes primitive arrays that are
+ * reused from sample to sample; the immutable {@link MemoryResponse}, formatted strings
+ * included, is built from them on the first read after a sample and then handed out to every
+ * later reader, so an unread tick allocates nothing of its own and {@code /memory} can still be
+ * polled every second at practically no cost.
+ *
+ * The MXBeans are looked up once at startup; rates are computed from the difference between
+ * two consecutive samples.
+ */
+@Service
+public class JvmTelemetryService {
+
+    private final List<MemoryPoolMXBean> memoryPools = ManagementFactory.getMemoryPoolMXBeans();
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final List<BufferPoolMXBean> bufferPools = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class);
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    // Names and types never change, so they are read once
+    private final String[] poolNames = new String[memoryPools.size()];
+    private final String[] poolTypes = new String[memoryPools.size()];
+
+    // Latest sample, written by sample() and read by build(), both under the monitor
+    private long sampledAt;
+    private long totalMemory;
+    private long freeMemory;
+    private long maxMemory;
+    private final boolean[] poolValid = new boolean[memoryPools.size()];
+    private final long[] poolUsed = new long[memoryPools.size()];
+    private final long[] poolCommitted = new long[memoryPools.size()];
+    private final long[] poolMax = new long[memoryPools.size()];
+    private final long[] poolUsedAfterGc = new long[memoryPools.size()];
+    private final long[] gcCounts = new long[collectors.size()];
+    private final long[] gcTimes = new long[collectors.size()];
+    private final long[] gcRecentCounts = new long[collectors.size()];
+    private final long[] gcRecentTimes = new long[collectors.size()];
+    private final long[] gcLastPauses = new long[collectors.size()];
+    private double allocationRate;
+    private int liveThreads;
+    private int daemonThreads;
+    private int peakThreads;
+    private long startedThreads;
+    private final long[] bufferCounts = new long[bufferPools.size()];
+    private final long[] bufferUsed = new long[bufferPools.size()];
+    private final long[] bufferCapacities = new long[bufferPools.size()];
+
+    // Bumped by every sample; the response is rebuilt when it was built from an older one
+    private volatile long sampleCount;
+    private volatile Built latest;
+
+    private long lastSampleNanos;
+    private long lastAllocatedBytes = -1;
+
+    @PostConstruct
+    public void init() {
+        for (int i = 0; i < memoryPools.size(); i++) {
+            MemoryPoolMXBean pool = memoryPools.get(i);
+            poolNames[i] = pool.getName();
+            poolTypes[i] = pool.getType() == MemoryType.HEAP ? "HEAP" : "NON_HEAP";
+        }
+        sample();
+    }
+
+    /**
+     * Latest telemetry sample.
+     */
+    public MemoryResponse getSnapshot() {
+        Built built = latest;
+        if (built != null && built.sample == sampleCount) {
+            return built.response;
+        }
+        synchronized (this) {
+            built = latest;
+            if (built == null || built.sample != sampleCount) {
+                built = new Built(sampleCount, build());
+                latest = built;
+            }
+            return built.response;
+        }
+    }
+
+    /**
+     * Take a new sample every {@code telemetry.sample-interval-millis}.
+     */
+    @Scheduled(fixedRateString = "${telemetry.sample-interval-millis:1000}",
+               initialDelayString = "${telemetry.sample-interval-millis:1000}")
+    public synchronized void sample() {
+        long now = System.nanoTime();
+        double elapsedSeconds = lastSampleNanos > 0 ? (now - lastSampleNanos) / 1e9 : 0;
+        lastSampleNanos = now;
+        sampledAt = System.currentTimeMillis();
+
+        Runtime runtime = Runtime.getRuntime();
+        totalMemory = runtime.totalMemory();
+        freeMemory = runtime.freeMemory();
+        maxMemory = runtime.maxMemory();
+
+        for (int i = 0; i < memoryPools.size(); i++) {
+            MemoryPoolMXBean pool = memoryPools.get(i);
+            poolValid[i] = pool.isValid();
+            if (!poolValid[i]) {
+                continue;
+            }
+            MemoryUsage usage = pool.getUsage();
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            poolUsed[i] = usage.getUsed();
+            poolCommitted[i] = usage.getCommitted();
+            poolMax[i] = usage.getMax();
+            poolUsedAfterGc[i] = afterGc != null ? afterGc.getUsed() : -1;
+        }
+
+        for (int i = 0; i < collectors.size(); i++) {
+            GarbageCollectorMXBean collector = collectors.get(i);
+            long count = collector.getCollectionCount();
+            long time = collector.getCollectionTime();
+            long lastPause = -1;
+            if (collector instanceof com.sun.management.GarbageCollectorMXBean hotspot && hotspot.getLastGcInfo() != null) {
+                lastPause = hotspot.getLastGcInfo().getDuration();
+            }
+            gcRecentCounts[i] = count - gcCounts[i];
+            gcRecentTimes[i] = time - gcTimes[i];
+            gcCounts[i] = count;
+            gcTimes[i] = time;
+            gcLastPauses[i] = lastPause;
+        }
+
+        allocationRate = -1;
+        if (threads instanceof com.sun.management.ThreadMXBean hotspot && hotspot.isThreadAllocatedMemoryEnabled()) {
+            // Summed over live threads; bytes of threads that died since the last sample are missed
+            long allocated = 0;
+            for (long bytes : hotspot.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+                if (bytes > 0) {
+                    allocated += bytes;
+                }
+            }
+            if (lastAllocatedBytes >= 0 && elapsedSeconds > 0) {
+                allocationRate = Math.max(0, allocated - lastAllocatedBytes) / elapsedSeconds;
+            }
+            lastAllocatedBytes = allocated;
+        }
+
+        for (int i = 0; i < bufferPools.size(); i++) {
+            BufferPoolMXBean pool = bufferPools.get(i);
+            bufferCounts[i] = pool.getCount();
+            bufferUsed[i] = pool.getMemoryUsed();
+            bufferCapacities[i] = pool.getTotalCapacity();
+        }
+
+        liveThreads = threads.getThreadCount();
+        daemonThreads = threads.getDaemonThreadCount();
+        peakThreads = threads.getPeakThreadCount();
+        startedThreads = threads.getTotalStartedThreadCount();
+
+        sampleCount++;
+    }
+
+    /**
+     * Copy the latest sample into an immutable response. Called with the monitor held.
+     */
+    private MemoryResponse build() {
+        List<PoolUsage> pools = new ArrayList<>(poolNames.length);
+        for (int i = 0; i < poolNames.length; i++) {
+            if (poolValid[i]) {
+                pools.add(new PoolUsage(poolNames[i], poolTypes[i], poolUsed[i], poolCommitted[i], poolMax[i],
+                    poolUsedAfterGc[i]));
+            }
+        }
+        List<GcStats> gcs = new ArrayList<>(collectors.size());
+        for (int i = 0; i < collectors.size(); i++) {
+            gcs.add(new GcStats(collectors.get(i).getName(), gcCounts[i], gcTimes[i], gcRecentCounts[i],
+                gcRecentTimes[i], gcLastPauses[i]));
+        }
+        List<BufferPoolUsage> buffers = new ArrayList<>(bufferPools.size());
+        for (int i = 0; i < bufferPools.size(); i++) {
+            buffers.add(new BufferPoolUsage(bufferPools.get(i).getName(), bufferCounts[i], bufferUsed[i],
+                bufferCapacities[i]));
+        }
+        return new MemoryResponse(totalMemory - freeMemory, freeMemory, totalMemory, maxMemory, sampledAt,
+            pools, gcs, allocationRate, new ThreadCounts(liveThreads, daemonThreads, peakThreads, startedThreads),
+            buffers);
+    }
+
+    /**
+     * A response together with the sample it was built from
+     */
+    private static final class Built {
+        private final long sample;
+        private final MemoryResponse response;
+
+        Built(long sample, MemoryResponse response) {
+            this.sample = sample;
+            this.response = response;
+        }
+    }
+
+    /**
+     * Memory response data class
+     */
+    public static class MemoryResponse {
+        private final long usedMemory;
+        private final long freeMemory;
+        private final long totalMemory;
+        private final long maxMemory;
+        private final String usedMemoryFormatted;
+        private final String freeMemoryFormatted;
+        private final String totalMemoryFormatted;
+        private final String maxMemoryFormatted;
+        private final double usagePercentage;
+        private final long sampledAt;
+        private final List<PoolUsage> pools;
+        private final List<GcStats> garbageCollectors;
+        private final double allocationRateBytesPerSecond;
+        private final ThreadCounts threads;
+        private final List<BufferPoolUsage> bufferPools;
+
+        public MemoryResponse(long usedMemory, long freeMemory, long totalMemory, long maxMemory,
+                              long sampledAt, List<PoolUsage> pools, List<GcStats> garbageCollectors,
+                              double allocationRateBytesPerSecond, ThreadCounts threads,
+                              List<BufferPoolUsage> bufferPools) {
+            this.usedMemory = usedMemory;
+            this.freeMemory = freeMemory;
+            this.totalMemory = totalMemory;
+            this.maxMemory = maxMemory;
+            this.usedMemoryFormatted = formatBytes(usedMemory);
+            this.freeMemoryFormatted = formatBytes(freeMemory);
+            this.totalMemoryFormatted = formatBytes(totalMemory);
+            this.maxMemoryFormatted = formatBytes(maxMemory);
+            this.usagePercentage = Math.round((double) usedMemory / totalMemory * 100.0 * 100.0) / 100.0;
+            this.sampledAt = sampledAt;
+            this.pools = List.copyOf(pools);
+            this.garbageCollectors = List.copyOf(garbageCollectors);
+            this.allocationRateBytesPerSecond = allocationRateBytesPerSecond;
+            this.threads = threads;
+            this.bufferPools = List.copyOf(bufferPools);
+        }
+
+        /**
+         * Format bytes into human readable format
+         */
+        static String formatBytes(long bytes) {
+            if (bytes < 1024) return bytes + " B";
+            double kb = bytes / 1024.0;
+            if (kb < 1024) return String.format("%.2f KB", kb);
+            double mb = kb / 1024.0;
+            if (mb < 1024) return String.format("%.2f MB", mb);
+            double gb = mb / 1024.0;
+            return String.format("%.2f GB", gb);
+        }
+
+        // Getters for raw values
+        public long getUsedMemory() { return usedMemory; }
+        public long getFreeMemory() { return freeMemory; }
+        public long getTotalMemory() { return totalMemory; }
+        public long getMaxMemory() { return maxMemory; }
+
+        // Getters for formatted values
+        public String getUsedMemoryFormatted() { return usedMemoryFormatted; }
+        public String getFreeMemoryFormatted() { return freeMemoryFormatted; }
+        public String getTotalMemoryFormatted() { return totalMemoryFormatted; }
+        public String getMaxMemoryFormatted() { return maxMemoryFormatted; }
+        public double getUsagePercentage() { return usagePercentage; }
+
+        // Getters for sampled telemetry
+        public long getSampledAt() { return sampledAt; }
+        public List<PoolUsage> getPools() { return pools; }
+        public List<GcStats> getGarbageCollectors() { return garbageCollectors; }
+        public double getAllocationRateBytesPerSecond() { return allocationRateBytesPerSecond; }
+        public ThreadCounts getThreads() { return threads; }
+        public List<BufferPoolUsage> getBufferPools() { return bufferPools; }
+    }
+
+    /**
+     * Data class for one memory pool (eden, survivor, old gen, metaspace, code cache, ...)
+     */
+    public static class PoolUsage {
+        private final String name;
+        private final String type;
+        private final long used;
+        private final long committed;
+        private final long max;
+        private final long usedAfterLastGc;
+
+        public PoolUsage(String name, String type, long used, long committed, long max, long usedAfterLastGc) {
+            this.name = name;
+            this.type = type;
+            this.used = used;
+            this.committed = committed;
+            this.max = max;
+            this.usedAfterLastGc = usedAfterLastGc;
+        }
+
+        // Getters
+        public String getName() { return name; }
+        public String getType() { return type; }
+        public long getUsed() { return used; }
+        public long getCommitted() { return committed; }
+        public long getMax() { return max; }
+        public long getUsedAfterLastGc() { return usedAfterLastGc; }
+    }
+
+    /**
+     * Data class for one garbage collector; deltas cover the last sample interval
+     */
+    public static class GcStats {
+        private final String name;
+        private final long collectionCount;
+        private final long collectionTimeMillis;
+        private final long recentCollections;
+        private final long recentTimeMillis;
+        private final long lastPauseMillis;
+
+        public GcStats(String name, long collectionCount, long collectionTimeMillis,
+                       long recentCollections, long recentTimeMillis, long lastPauseMillis) {
+            this.name = name;
+            this.collectionCount = collectionCount;
+            this.collectionTimeMillis = collectionTimeMillis;
+            this.recentCollections = recentCollections;
+            this.recentTimeMillis = recentTimeMillis;
+            this.lastPauseMillis = lastPauseMillis;
+        }
+
+        // Getters
+        public String getName() { return name; }
+        public long getCollectionCount() { return collectionCount; }
+        public long getCollectionTimeMillis() { return collectionTimeMillis; }
+        public long getRecentCollections() { return recentCollections; }
+        public long getRecentTimeMillis() { return recentTimeMillis; }
+        public long getLastPauseMillis() { return lastPauseMillis; }
+    }
+
+    /**
+     * Data class for thread counts
+     */
+    public static class ThreadCounts {
+        private final int live;
+        private final int daemon;
+        private final int peak;
+        private final long totalStarted;
+
+        public ThreadCounts(int live, int daemon, int peak, long totalStarted) {
+            this.live = live;
+            this.daemon = daemon;
+            this.peak = peak;
+            this.totalStarted = totalStarted;
+        }
+
+        // Getters
+        public int getLive() { return live; }
+        public int getDaemon() { return daemon; }
+        public int getPeak() { return peak; }
+        public long getTotalStarted() { return totalStarted; }
+    }
+
+    /**
+     * Data class for an NIO buffer pool (direct or mapped)
+     */
+    public static class BufferPoolUsage {
+        private final String name;
+        private final long count;
+        private final long memoryUsed;
+        private final long totalCapacity;
+
+        public BufferPoolUsage(String name, long count, long memoryUsed, long totalCapacity) {
+            this.name = name;
+            this.count = count;
+            this.memoryUsed = memoryUsed;
+            this.totalCapacity = totalCapacity;
+        }
+
+        // Getters
+        public String getName() { return name; }
+        public long getCount() { return count; }
+        public long getMemoryUsed() { return memoryUsed; }
+        public long getTotalCapacity() { return totalCapacity; }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.hello_spring.services;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-JVM transport: every transport attached to the same {@link Hub} receives the messages
+ * the others send, synchronously on the sender's thread. Used to exercise the invalidation bus
+ * without a network, and as the default when only one node runs.
+ */
+public class LoopbackInvalidationTransport implements CacheInvalidationTransport {
+
+    private final Hub hub;
+    private volatile Consumer<byte[]> receiver;
+
+    public LoopbackInvalidationTransport(Hub hub) {
+        this.hub = hub;
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        hub.transports.add(this);
+    }
+
+    @Override
+    public void send(byte[] message) {
+        for (LoopbackInvalidationTransport peer : hub.transports) {
+            Consumer<byte[]> peerReceiver = peer.receiver;
+            if (peer != this && peerReceiver != null) {
+                peerReceiver.accept(message);
+            }
+        }
+    }
+
+    @Override
+    public int maxMessageSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void close() {
+        hub.transports.remove(this);
+    }
+
+    /**
+     * Shared channel connecting loopback transports.
+     */
+    public static class Hub {
+        private final List<LoopbackInvalidationTransport> transports = new CopyOnWriteArrayList<>();
+    }
+}
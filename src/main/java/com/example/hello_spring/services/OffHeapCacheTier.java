@@ -0,0 +1,288 @@
+package com.example.hello_spring.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Off-heap second tier for {@link CacheService}. Values evicted from the on-heap cache are
+ * serialized into fixed-size direct {@link ByteBuffer} slabs, so the cold set costs no heap
+ * beyond a small index entry and adds nothing to old-gen GC work.
+ *
+ * Slabs form a ring that is written append-only. When the ring is full the oldest slab is
+ * recycled and every entry still stored in it is dropped (FIFO eviction by slab). Overwritten
+ * or removed entries leave dead bytes behind until their slab is recycled. Only
+ * {@link Serializable} values can be stored; others are rejected and simply fall out of the cache.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.l2.enabled", havingValue = "true")
+public class OffHeapCacheTier {
+
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapCacheTier.class);
+
+    private final ByteBuffer[] slabs;
+    private final List<List<String>> slabKeys;
+    private final int slabSize;
+    private final long ttlMillis;
+    private final Map<String, Location> index = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int currentSlab = 0;
+    private int writeOffset = 0;
+    private long usedBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param capacity Total off-heap capacity, split into slabs of {@code slabSize}
+     * @param slabSize Size of one slab; also the largest value that can be stored
+     * @param ttl      How long a stored value stays readable
+     */
+    public OffHeapCacheTier(@Value("${cache.l2.capacity:64MB}") DataSize capacity,
+                            @Value("${cache.l2.slab-size:1MB}") DataSize slabSize,
+                            @Value("${cache.l2.ttl:10m}") Duration ttl) {
+        if (slabSize.toBytes() <= 0 || slabSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Slab size must be between 1 byte and 2 GB");
+        }
+        this.slabSize = (int) slabSize.toBytes();
+        int slabCount = (int) Math.max(2, capacity.toBytes() / this.slabSize);
+        this.slabs = new ByteBuffer[slabCount];
+        this.slabKeys = new ArrayList<>(slabCount);
+        for (int i = 0; i < slabCount; i++) {
+            slabKeys.add(new ArrayList<>());
+        }
+        this.ttlMillis = ttl.toMillis();
+        logger.info("Off-heap cache tier enabled: {} slabs of {} bytes", slabCount, this.slabSize);
+    }
+
+    /**
+     * Serialize and store a value, replacing any previous value for the key.
+     *
+     * @return true if stored, false if the value is not serializable or larger than a slab
+     */
+    public boolean put(String key, Object value) {
+        byte[] bytes = CacheValueSerializer.serialize(value);
+        if (bytes == null || bytes.length > slabSize) {
+            rejections.incrementAndGet();
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+            if (writeOffset + bytes.length > slabSize) {
+                advanceSlab();
+            }
+            ByteBuffer slab = slabs[currentSlab];
+            if (slab == null) {
+                slab = ByteBuffer.allocateDirect(slabSize);
+                slabs[currentSlab] = slab;
+            }
+            slab.put(writeOffset, bytes);
+            index.put(key, new Location(currentSlab, writeOffset, bytes.length,
+                System.currentTimeMillis() + ttlMillis));
+            slabKeys.get(currentSlab).add(key);
+            writeOffset += bytes.length;
+            usedBytes += bytes.length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        stores.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Read a value without removing it.
+     *
+     * @return The stored value, or null if absent, expired or unreadable
+     */
+    public Object get(String key) {
+        byte[] bytes;
+        lock.readLock().lock();
+        try {
+            bytes = read(index.get(key));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return record(bytes);
+    }
+
+    /**
+     * Read and remove a value, for promotion back to the on-heap tier.
+     *
+     * @return The stored value, or null if absent, expired or unreadable
+     */
+    public Object take(String key) {
+        byte[] bytes;
+        lock.writeLock().lock();
+        try {
+            bytes = read(index.get(key));
+            removeLocked(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return record(bytes);
+    }
+
+    /**
+     * Remove a value if present.
+     */
+    public void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop every entry. Slabs stay allocated and are reused.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            slabKeys.forEach(List::clear);
+            currentSlab = 0;
+            writeOffset = 0;
+            usedBytes = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Snapshot of the tier's counters and occupancy.
+     */
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            long allocated = 0;
+            for (ByteBuffer slab : slabs) {
+                if (slab != null) {
+                    allocated += slab.capacity();
+                }
+            }
+            return new Stats(index.size(), usedBytes, allocated, (long) slabs.length * slabSize,
+                hits.get(), misses.get(), stores.get(), rejections.get(), evictions.get());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private byte[] read(Location location) {
+        if (location == null || location.expiresAt <= System.currentTimeMillis()) {
+            return null;
+        }
+        byte[] bytes = new byte[location.length];
+        slabs[location.slab].get(location.offset, bytes);
+        return bytes;
+    }
+
+    private Object record(byte[] bytes) {
+        Object value = bytes != null ? CacheValueSerializer.deserialize(bytes) : null;
+        if (value != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return value;
+    }
+
+    private void removeLocked(String key) {
+        Location removed = index.remove(key);
+        if (removed != null) {
+            usedBytes -= removed.length;
+        }
+    }
+
+    /**
+     * Move the write position to the next slab in the ring, dropping whatever it still holds.
+     */
+    private void advanceSlab() {
+        currentSlab = (currentSlab + 1) % slabs.length;
+        writeOffset = 0;
+        List<String> keys = slabKeys.get(currentSlab);
+        for (String key : keys) {
+            Location location = index.get(key);
+            // The key may have been rewritten into a newer slab since
+            if (location != null && location.slab == currentSlab) {
+                index.remove(key);
+                usedBytes -= location.length;
+                evictions.incrementAndGet();
+            }
+        }
+        keys.clear();
+    }
+
+    private static final class Location {
+        private final int slab;
+        private final int offset;
+        private final int length;
+        private final long expiresAt;
+
+        Location(int slab, int offset, int length, long expiresAt) {
+            this.slab = slab;
+            this.offset = offset;
+            this.length = length;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Data class for off-heap tier statistics
+     */
+    public static class Stats {
+        private final long entries;
+        private final long usedBytes;
+        private final long allocatedBytes;
+        private final long capacityBytes;
+        private final long hits;
+        private final long misses;
+        private final long stores;
+        private final long rejections;
+        private final long evictions;
+
+        public Stats(long entries, long usedBytes, long allocatedBytes, long capacityBytes,
+                     long hits, long misses, long stores, long rejections, long evictions) {
+            this.entries = entries;
+            this.usedBytes = usedBytes;
+            this.allocatedBytes = allocatedBytes;
+            this.capacityBytes = capacityBytes;
+            this.hits = hits;
+            this.misses = misses;
+            this.stores = stores;
+            this.rejections = rejections;
+            this.evictions = evictions;
+        }
+
+        // Getters
+        public long getEntries() { return entries; }
+        public long getUsedBytes() { return usedBytes; }
+        public long getAllocatedBytes() { return allocatedBytes; }
+        public long getCapacityBytes() { return capacityBytes; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getStores() { return stores; }
+        public long getRejections() { return rejections; }
+        public long getEvictions() { return evictions; }
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.hello_spring.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-route request metrics fed by the request metrics filter: latency histogram, response
+ * size, database time and statements, cache and serialization time, and server errors. All
+ * recorders are Micrometer meters, so the same numbers are exported (with a percentile
+ * histogram on {@code app.request.latency} for p99 alerting) and served by
+ * {@code /metrics/routes}. Micrometer's timers and summaries record without locking, and the
+ * meters of a route are looked up once and then reused from a concurrent map.
+ */
+@Service
+public class RequestMetrics {
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, RouteMeters> routes = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public RequestMetrics(@Nullable MeterRegistry registry) {
+        this.registry = registry != null ? registry : new SimpleMeterRegistry();
+        Gauge.builder("app.request.in.flight", inFlight, AtomicInteger::get)
+            .description("Requests currently being handled")
+            .register(this.registry);
+    }
+
+    /**
+     * A request entered the filter.
+     */
+    public void started() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * A request finished; record it against its route.
+     *
+     * @param method        HTTP method
+     * @param route         Matched route pattern, e.g. {@code /users/search}
+     * @param status        Response status
+     * @param elapsedNanos  Time spent in the filter chain
+     * @param responseBytes Body bytes written
+     * @param timings       Breakdown collected while handling the request
+     */
+    public void finished(String method, String route, int status, long elapsedNanos, long responseBytes,
+                         RequestTimings timings) {
+        inFlight.decrementAndGet();
+        RouteMeters meters = routes.computeIfAbsent(method + " " + route, k -> new RouteMeters(method, route));
+        meters.latency.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        meters.responseSize.record(responseBytes);
+        meters.db.record(timings.getNanos(RequestTimings.Phase.DB), TimeUnit.NANOSECONDS);
+        meters.statements.record(timings.getStatements());
+        meters.cache.record(timings.getNanos(RequestTimings.Phase.CACHE), TimeUnit.NANOSECONDS);
+        meters.serialization.record(timings.getNanos(RequestTimings.Phase.SERIALIZATION), TimeUnit.NANOSECONDS);
+        if (status >= 500) {
+            meters.serverErrors.increment();
+        }
+    }
+
+    /**
+     * Current numbers for every route seen so far, slowest p99 first. Percentiles cover the
+     * last couple of minutes; counts and means cover the whole uptime.
+     */
+    public Report report() {
+        List<RouteStats> stats = new ArrayList<>(routes.size());
+        for (RouteMeters meters : routes.values()) {
+            stats.add(meters.stats());
+        }
+        stats.sort(Comparator.comparingDouble(RouteStats::getP99Millis).reversed());
+        return new Report(inFlight.get(), stats);
+    }
+
+    private final class RouteMeters {
+        final String method;
+        final String route;
+        final Timer latency;
+        final DistributionSummary responseSize;
+        final Timer db;
+        final DistributionSummary statements;
+        final Timer cache;
+        final Timer serialization;
+        final Counter serverErrors;
+
+        RouteMeters(String method, String route) {
+            this.method = method;
+            this.route = route;
+            this.latency = Timer.builder("app.request.latency")
+                .tags("method", method, "route", route)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .description("Time spent handling requests, per route")
+                .register(registry);
+            this.responseSize = DistributionSummary.builder("app.request.response.size")
+                .tags("method", method, "route", route)
+                .baseUnit("bytes")
+                .description("Response body size")
+                .register(registry);
+            this.db = phaseTimer("db");
+            this.cache = phaseTimer("cache");
+            this.serialization = phaseTimer("serialization");
+            this.statements = DistributionSummary.builder("app.request.db.statements")
+                .tags("method", method, "route", route)
+                .description("SQL statements executed per request")
+                .register(registry);
+            this.serverErrors = Counter.builder("app.request.server.errors")
+                .tags("method", method, "route", route)
+                .description("Requests answered with a 5xx status")
+                .register(registry);
+        }
+
+        private Timer phaseTimer(String phase) {
+            return Timer.builder("app.request.phase")
+                .tags("method", method, "route", route, "phase", phase)
+                .description("Time per request spent in the database, the cache or serializing the response")
+                .register(registry);
+        }
+
+        RouteStats stats() {
+            HistogramSnapshot snapshot = latency.takeSnapshot();
+            double p50 = 0, p95 = 0, p99 = 0;
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                double millis = percentile.value(TimeUnit.MILLISECONDS);
+                if (percentile.percentile() == 0.5) {
+                    p50 = millis;
+                } else if (percentile.percentile() == 0.95) {
+                    p95 = millis;
+                } else if (percentile.percentile() == 0.99) {
+                    p99 = millis;
+                }
+            }
+            return new RouteStats(method, route, snapshot.count(), (long) serverErrors.count(),
+                snapshot.mean(TimeUnit.MILLISECONDS), p50, p95, p99, snapshot.max(TimeUnit.MILLISECONDS),
+                responseSize.mean(), db.mean(TimeUnit.MILLISECONDS), statements.mean(),
+                cache.mean(TimeUnit.MILLISECONDS), serialization.mean(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    /**
+     * Data class for the metrics endpoint
+     */
+    public static class Report {
+        private final int inFlight;
+        private final List<RouteStats> routes;
+
+        public Report(int inFlight, List<RouteStats> routes) {
+            this.inFlight = inFlight;
+            this.routes = routes;
+        }
+
+        // Getters
+        public int getInFlight() { return inFlight; }
+        public List<RouteStats> getRoutes() { return routes; }
+    }
+
+    /**
+     * Data class for one route; the phase times are means per request
+     */
+    public static class RouteStats {
+        private final String method;
+        private final String route;
+        private final long count;
+        private final long serverErrors;
+        private final double meanMillis;
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+        private final double meanResponseBytes;
+        private final double meanDbMillis;
+        private final double meanDbStatements;
+        private final double meanCacheMillis;
+        private final double meanSerializationMillis;
+
+        public RouteStats(String method, String route, long count, long serverErrors, double meanMillis,
+                          double p50Millis, double p95Millis, double p99Millis, double maxMillis,
+                          double meanResponseBytes, double meanDbMillis, double meanDbStatements,
+                          double meanCacheMillis, double meanSerializationMillis) {
+            this.method = method;
+            this.route = route;
+            this.count = count;
+            this.serverErrors = serverErrors;
+            this.meanMillis = meanMillis;
+            this.p50Millis = p50Millis;
+            this.p95Millis = p95Millis;
+            this.p99Millis = p99Millis;
+            this.maxMillis = maxMillis;
+            this.meanResponseBytes = meanResponseBytes;
+            this.meanDbMillis = meanDbMillis;
+            this.meanDbStatements = meanDbStatements;
+            this.meanCacheMillis = meanCacheMillis;
+            this.meanSerializationMillis = meanSerializationMillis;
+        }
+
+        // Getters
+        public String getMethod() { return method; }
+        public String getRoute() { return route; }
+        public long getCount() { return count; }
+        public long getServerErrors() { return serverErrors; }
+        public double getMeanMillis() { return meanMillis; }
+        public double getP50Millis() { return p50Millis; }
+        public double getP95Millis() { return p95Millis; }
+        public double getP99Millis() { return p99Millis; }
+        public double getMaxMillis() { return maxMillis; }
+        public double getMeanResponseBytes() { return meanResponseBytes; }
+        public double getMeanDbMillis() { return meanDbMillis; }
+        public double getMeanDbStatements() { return meanDbStatements; }
+        public double getMeanCacheMillis() { return meanCacheMillis; }
+        public double getMeanSerializationMillis() { return meanSerializationMillis; }
+    }
+}
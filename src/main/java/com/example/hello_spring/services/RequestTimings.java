@@ -0,0 +1,92 @@
+package com.example.hello_spring.services;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-request breakdown of where time went. The request metrics filter opens one for each
+ * request on the handling thread; code on that thread attributes time to a {@link Phase} with
+ * {@link #time} or {@link #record}. Outside a request both are no-ops apart from the call itself.
+ *
+ * Timed sections may nest (a cache load that queries the database); each phase gets only its
+ * exclusive time, so the phases never add up to more than the request took.
+ */
+public final class RequestTimings {
+
+    public enum Phase { DB, CACHE, SERIALIZATION }
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final long[] nanos = new long[Phase.values().length];
+    private long attributedNanos;
+    private int statements;
+
+    private RequestTimings() {
+    }
+
+    /**
+     * Start collecting timings for the request on this thread.
+     */
+    public static RequestTimings begin() {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * Stop collecting timings on this thread.
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Add time spent in a phase by the current request, if any.
+     */
+    public static void record(Phase phase, long elapsedNanos) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.add(phase, elapsedNanos);
+        }
+    }
+
+    /**
+     * Count one executed SQL statement (or batch) for the current request, if any.
+     */
+    public static void countStatement() {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.statements++;
+        }
+    }
+
+    /**
+     * Run {@code work} and attribute its time, minus any nested timed sections, to {@code phase}.
+     */
+    public static <T> T time(Phase phase, Supplier<T> work) {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null) {
+            return work.get();
+        }
+        long nestedBefore = timings.attributedNanos;
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            timings.add(phase, elapsed - (timings.attributedNanos - nestedBefore));
+        }
+    }
+
+    private void add(Phase phase, long elapsedNanos) {
+        nanos[phase.ordinal()] += elapsedNanos;
+        attributedNanos += elapsedNanos;
+    }
+
+    public long getNanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.hello_spring.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Weighted counts per key over a rolling time window, split into fixed time slots. Each slot
+ * is reset when the clock comes back around to it, so data older than the window drops out
+ * without any background work. Written by one JFR dispatch thread, read by request threads.
+ */
+final class RollingTopN {
+
+    private final long slotMillis;
+    private final AtomicReferenceArray<Map<String, LongAdder>> slots;
+    private final AtomicLongArray slotEpochs;
+
+    /**
+     * @param windowMillis Length of the window
+     * @param slotCount    Number of slots the window is split into
+     */
+    RollingTopN(long windowMillis, int slotCount) {
+        this.slotMillis = Math.max(1, windowMillis / slotCount);
+        this.slots = new AtomicReferenceArray<>(slotCount);
+        this.slotEpochs = new AtomicLongArray(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.set(i, new ConcurrentHashMap<>());
+            slotEpochs.set(i, -1);
+        }
+    }
+
+    void add(String key, long weight, long nowMillis) {
+        long epoch = nowMillis / slotMillis;
+        int index = (int) (epoch % slots.length());
+        if (slotEpochs.get(index) != epoch) {
+            // First write in a new lap: replace the stale slot
+            slots.set(index, new ConcurrentHashMap<>());
+            slotEpochs.set(index, epoch);
+        }
+        slots.get(index).computeIfAbsent(key, k -> new LongAdder()).add(weight);
+    }
+
+    /**
+     * @return The {@code limit} heaviest keys in the window, heaviest first, and the total weight
+     */
+    Top top(int limit, long nowMillis) {
+        long currentEpoch = nowMillis / slotMillis;
+        Map<String, Long> merged = new HashMap<>();
+        long total = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            long epoch = slotEpochs.get(i);
+            if (epoch < 0 || currentEpoch - epoch >= slots.length()) {
+                continue;
+            }
+            for (Map.Entry<String, LongAdder> entry : slots.get(i).entrySet()) {
+                long value = entry.getValue().sum();
+                merged.merge(entry.getKey(), value, Long::sum);
+                total += value;
+            }
+        }
+        List<Map.Entry<String, Long>> sorted = new ArrayList<>(merged.entrySet());
+        sorted.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        return new Top(sorted.subList(0, Math.min(limit, sorted.size())), total);
+    }
+
+    static final class Top {
+        final List<Map.Entry<String, Long>> entries;
+        final long total;
+
+        Top(List<Map.Entry<String, Long>> entries, long total) {
+            this.entries = entries;
+            this.total = total;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.hello_spring.services;
+
+import com.example.hello_spring.entities.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+/**
+ * Hit/miss counters for Hibernate's second-level cache (User entities) and query cache
+ * ({@code findByUsername}/{@code findFirstByEmailOrderByIdAsc}). Counters stay at zero unless
+ * {@code hibernate.generate_statistics} is on.
+ */
+@Service
+public class SecondLevelCacheService {
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final boolean secondLevelCacheEnabled;
+    private final boolean queryCacheEnabled;
+
+    public SecondLevelCacheService(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.secondLevelCacheEnabled = sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled();
+        this.queryCacheEnabled = sessionFactory.getSessionFactoryOptions().isQueryCacheEnabled();
+    }
+
+    /**
+     * Drop cached User entities and query results after users were written where this node's
+     * Hibernate did not see it: outside Hibernate (R2DBC) or on another node. The regions are
+     * local to each node, so they would otherwise keep answering lookups (including "not found")
+     * from before the write until their TTLs run out.
+     */
+    public void evictUsers() {
+        if (secondLevelCacheEnabled) {
+            sessionFactory.getCache().evictEntityData(User.class);
+        }
+        if (queryCacheEnabled) {
+            sessionFactory.getCache().evictDefaultQueryRegion();
+        }
+    }
+
+    public Stats stats() {
+        Statistics statistics = sessionFactory.getStatistics();
+        boolean enabled = secondLevelCacheEnabled;
+        CacheRegionStatistics entity = enabled
+            ? statistics.getDomainDataRegionStatistics(User.class.getName())
+            : null;
+        return new Stats(enabled, statistics.isStatisticsEnabled(),
+            entity != null ? entity.getHitCount() : 0,
+            entity != null ? entity.getMissCount() : 0,
+            entity != null ? entity.getPutCount() : 0,
+            entity != null ? entity.getElementCountInMemory() : 0,
+            statistics.getQueryCacheHitCount(),
+            statistics.getQueryCacheMissCount(),
+            statistics.getQueryCachePutCount());
+    }
+
+    /**
+     * Second-level and query cache counters
+     */
+    public static class Stats {
+        private final boolean enabled;
+        private final boolean statisticsEnabled;
+        private final long entityHitCount;
+        private final long entityMissCount;
+        private final long entityPutCount;
+        private final long entityElementCount;
+        private final long queryHitCount;
+        private final long queryMissCount;
+        private final long queryPutCount;
+
+        public Stats(boolean enabled, boolean statisticsEnabled, long entityHitCount, long entityMissCount,
+                     long entityPutCount, long entityElementCount, long queryHitCount, long queryMissCount,
+                     long queryPutCount) {
+            this.enabled = enabled;
+            this.statisticsEnabled = statisticsEnabled;
+            this.entityHitCount = entityHitCount;
+            this.entityMissCount = entityMissCount;
+            this.entityPutCount = entityPutCount;
+            this.entityElementCount = entityElementCount;
+            this.queryHitCount = queryHitCount;
+            this.queryMissCount = queryMissCount;
+            this.queryPutCount = queryPutCount;
+        }
+
+        // Getters
+        public boolean isEnabled() { return enabled; }
+        public boolean isStatisticsEnabled() { return statisticsEnabled; }
+        public long getEntityHitCount() { return entityHitCount; }
+        public long getEntityMissCount() { return entityMissCount; }
+        public long getEntityPutCount() { return entityPutCount; }
+        public long getEntityElementCount() { return entityElementCount; }
+        public long getQueryHitCount() { return queryHitCount; }
+        public long getQueryMissCount() { return queryMissCount; }
+        public long getQueryPutCount() { return queryPutCount; }
+
+        public double getEntityHitRate() {
+            long requests = entityHitCount + entityMissCount;
+            return requests == 0 ? 0.0 : (double) entityHitCount / requests;
+        }
+
+        public double getQueryHitRate() {
+            long requests = queryHitCount + queryMissCount;
+            return requests == 0 ? 0.0 : (double) queryHitCount / requests;
+        }
+    }
+}
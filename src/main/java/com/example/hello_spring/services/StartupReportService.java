@@ -0,0 +1,206 @@
+package com.example.hello_spring.services;
+
+import com.example.hello_spring.DeferredBeanInitializer;
+import com.sun.management.HotSpotDiagnosticMXBean;
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Startup report: total time-to-ready and how long each bean took to create, to measure startup
+ * work such as AOT processing, the CDS archive and deferred beans (see the Dockerfile).
+ *
+ * Per-bean times come from Spring's {@code spring.beans.instantiate} startup steps, which are
+ * only recorded when the application runs with a {@link BufferingApplicationStartup} (as
+ * {@code HelloSpringApplication#main} sets up). A bean's total time includes creating the beans
+ * it depends on; its self time does not. The timings are computed once when the application is
+ * ready and the buffer is drained, so its startup steps are not kept alive afterwards.
+ */
+@Service
+public class StartupReportService {
+
+    private static final String BEAN_INSTANTIATE = "spring.beans.instantiate";
+
+    private final DeferredBeanInitializer deferredBeanInitializer;
+
+    private volatile Ready ready;
+
+    public StartupReportService(DeferredBeanInitializer deferredBeanInitializer) {
+        this.deferredBeanInitializer = deferredBeanInitializer;
+    }
+
+    // Ahead of DeferredBeanInitializer, so deferred beans are not counted as startup work
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void applicationReady(ApplicationReadyEvent event) {
+        long now = System.currentTimeMillis();
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        ApplicationStartup startup = event.getApplicationContext().getApplicationStartup();
+        List<BeanTiming> beans = null;
+        if (startup instanceof BufferingApplicationStartup buffering) {
+            beans = beanTimings(buffering.drainBufferedTimeline());
+            // Nothing reads later steps, so stop buffering them
+            buffering.addFilter(step -> false);
+        }
+        long springMillis = event.getTimeTaken() != null ? event.getTimeTaken().toMillis() : -1;
+        ready = new Ready(Instant.ofEpochMilli(now).toString(), now - jvmStart, springMillis, beans);
+    }
+
+    /**
+     * The report with the {@code limit} slowest beans by self time, empty until the application
+     * is ready.
+     */
+    public Optional<Report> report(int limit) {
+        Ready current = ready;
+        if (current == null) {
+            return Optional.empty();
+        }
+        List<BeanTiming> slowest = null;
+        if (current.beans != null) {
+            slowest = current.beans.subList(0, Math.min(Math.max(limit, 0), current.beans.size()));
+        }
+        return Optional.of(new Report(current.readyAt, current.timeToReadyMillis, current.springStartupMillis,
+            AotDetector.useGeneratedArtifacts(), sharedArchiveFile(),
+            current.beans != null ? current.beans.size() : -1, slowest,
+            deferredBeanInitializer.getInitMillis()));
+    }
+
+    /**
+     * One timing per instantiated bean, slowest self time first.
+     */
+    static List<BeanTiming> beanTimings(StartupTimeline timeline) {
+        Map<Long, StartupTimeline.TimelineEvent> beansById = new HashMap<>();
+        for (StartupTimeline.TimelineEvent event : timeline.getEvents()) {
+            if (BEAN_INSTANTIATE.equals(event.getStartupStep().getName())) {
+                beansById.put(event.getStartupStep().getId(), event);
+            }
+        }
+        // Time spent creating dependencies, charged to the bean that needed them
+        Map<Long, Long> childNanos = new HashMap<>();
+        for (StartupTimeline.TimelineEvent event : beansById.values()) {
+            Long parentId = event.getStartupStep().getParentId();
+            if (parentId != null && beansById.containsKey(parentId)) {
+                childNanos.merge(parentId, event.getDuration().toNanos(), Long::sum);
+            }
+        }
+        List<BeanTiming> timings = new ArrayList<>(beansById.size());
+        for (StartupTimeline.TimelineEvent event : beansById.values()) {
+            long total = event.getDuration().toNanos();
+            long self = total - childNanos.getOrDefault(event.getStartupStep().getId(), 0L);
+            timings.add(new BeanTiming(tag(event.getStartupStep(), "beanName"), total / 1_000_000.0,
+                Math.max(self, 0) / 1_000_000.0));
+        }
+        timings.sort(Comparator.comparingDouble(BeanTiming::getSelfMillis).reversed());
+        return timings;
+    }
+
+    private static String tag(StartupStep step, String key) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (key.equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static String sharedArchiveFile() {
+        try {
+            String file = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class)
+                .getVMOption("SharedArchiveFile").getValue();
+            return file.isEmpty() ? null : file;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static final class Ready {
+        final String readyAt;
+        final long timeToReadyMillis;
+        final long springStartupMillis;
+        final List<BeanTiming> beans;
+
+        Ready(String readyAt, long timeToReadyMillis, long springStartupMillis, List<BeanTiming> beans) {
+            this.readyAt = readyAt;
+            this.timeToReadyMillis = timeToReadyMillis;
+            this.springStartupMillis = springStartupMillis;
+            this.beans = beans;
+        }
+    }
+
+    /**
+     * Creation time of one bean
+     */
+    public static class BeanTiming {
+        private final String name;
+        private final double totalMillis;
+        private final double selfMillis;
+
+        public BeanTiming(String name, double totalMillis, double selfMillis) {
+            this.name = name;
+            this.totalMillis = totalMillis;
+            this.selfMillis = selfMillis;
+        }
+
+        // Getters
+        public String getName() { return name; }
+        public double getTotalMillis() { return totalMillis; }
+        public double getSelfMillis() { return selfMillis; }
+    }
+
+    /**
+     * Startup report
+     */
+    public static class Report {
+        private final String readyAt;
+        private final long timeToReadyMillis;
+        private final long springStartupMillis;
+        private final boolean aotEnabled;
+        private final String sharedArchiveFile;
+        private final int beansInstantiated;
+        private final List<BeanTiming> slowestBeans;
+        private final Map<String, Double> deferredBeans;
+
+        public Report(String readyAt, long timeToReadyMillis, long springStartupMillis, boolean aotEnabled,
+                      String sharedArchiveFile, int beansInstantiated, List<BeanTiming> slowestBeans,
+                      Map<String, Double> deferredBeans) {
+            this.readyAt = readyAt;
+            this.timeToReadyMillis = timeToReadyMillis;
+            this.springStartupMillis = springStartupMillis;
+            this.aotEnabled = aotEnabled;
+            this.sharedArchiveFile = sharedArchiveFile;
+            this.beansInstantiated = beansInstantiated;
+            this.slowestBeans = slowestBeans;
+            this.deferredBeans = deferredBeans;
+        }
+
+        // Getters
+        public String getReadyAt() { return readyAt; }
+        /** From JVM start to application ready, including JVM boot and class loading before main. */
+        public long getTimeToReadyMillis() { return timeToReadyMillis; }
+        /** From {@code SpringApplication.run} to application ready. */
+        public long getSpringStartupMillis() { return springStartupMillis; }
+        public boolean isAotEnabled() { return aotEnabled; }
+        public String getSharedArchiveFile() { return sharedArchiveFile; }
+        /** -1 when bean timings were not recorded. */
+        public int getBeansInstantiated() { return beansInstantiated; }
+        public List<BeanTiming> getSlowestBeans() { return slowestBeans; }
+        /** Beans created after ready (see {@link DeferredBeanInitializer}) and their creation time. */
+        public Map<String, Double> getDeferredBeans() { return deferredBeans; }
+    }
+}
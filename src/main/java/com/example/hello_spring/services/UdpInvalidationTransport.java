@@ -0,0 +1,138 @@
+package com.example.hello_spring.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * UDP transport: listens on a local port and sends every message as one datagram to each
+ * configured peer. No external service is needed, so several instances can be run on one
+ * machine with different ports. Messages are unacknowledged; a dropped datagram leaves the
+ * peer's entry to expire by TTL.
+ *
+ * Datagrams are not authenticated, and they also drive ETag versions and the availability
+ * filter, so anyone who can reach the port can forge invalidations. The transport therefore
+ * stays on the loopback interface unless remote peers are explicitly allowed (see
+ * {@link #checkAddresses}); only allow them on a private network.
+ */
+public class UdpInvalidationTransport implements CacheInvalidationTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(UdpInvalidationTransport.class);
+
+    // Stays under the 65,507-byte IPv4 UDP payload limit
+    private static final int MAX_DATAGRAM = 65_000;
+
+    private final InetSocketAddress bindAddress;
+    private final List<InetSocketAddress> peers;
+    private DatagramChannel channel;
+
+    /**
+     * @param bindAddress Local address and port to listen on
+     * @param peers       Addresses of the other nodes
+     */
+    public UdpInvalidationTransport(InetSocketAddress bindAddress, List<InetSocketAddress> peers) {
+        this.bindAddress = bindAddress;
+        this.peers = List.copyOf(peers);
+    }
+
+    /**
+     * Parse a comma-separated {@code host:port} list.
+     */
+    public static List<InetSocketAddress> parsePeers(String peers) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        if (peers == null || peers.isBlank()) {
+            return addresses;
+        }
+        for (String peer : peers.split(",")) {
+            String trimmed = peer.trim();
+            int colon = trimmed.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Invalid peer address (expected host:port): " + trimmed);
+            }
+            addresses.add(new InetSocketAddress(trimmed.substring(0, colon),
+                Integer.parseInt(trimmed.substring(colon + 1))));
+        }
+        return addresses;
+    }
+
+    /**
+     * Reject a non-loopback bind address or peer unless {@code allowRemote} is set.
+     *
+     * @throws IllegalArgumentException if an address leaves the machine without the opt-in
+     */
+    public static void checkAddresses(InetSocketAddress bindAddress, List<InetSocketAddress> peers,
+                                      boolean allowRemote) {
+        if (allowRemote) {
+            return;
+        }
+        List<InetSocketAddress> addresses = new ArrayList<>(peers);
+        addresses.add(bindAddress);
+        for (InetSocketAddress address : addresses) {
+            if (address.isUnresolved() || !address.getAddress().isLoopbackAddress()) {
+                throw new IllegalArgumentException("Cache invalidation address " + address
+                    + " is not a loopback address; set cache.invalidation.udp.allow-remote=true to use it");
+            }
+        }
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) throws IOException {
+        channel = DatagramChannel.open();
+        channel.bind(bindAddress);
+        Thread receiverThread = new Thread(() -> receiveLoop(receiver), "cache-invalidation-udp");
+        receiverThread.setDaemon(true);
+        receiverThread.start();
+        logger.info("Cache invalidation listening on UDP {} with {} peer(s)", channel.getLocalAddress(), peers.size());
+    }
+
+    private void receiveLoop(Consumer<byte[]> receiver) {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_DATAGRAM);
+        while (channel.isOpen()) {
+            try {
+                buffer.clear();
+                channel.receive(buffer);
+                buffer.flip();
+                byte[] message = new byte[buffer.remaining()];
+                buffer.get(message);
+                receiver.accept(message);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (Exception e) {
+                logger.warn("Failed to handle cache invalidation datagram: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void send(byte[] message) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(message);
+        for (InetSocketAddress peer : peers) {
+            buffer.rewind();
+            channel.send(buffer, peer);
+        }
+    }
+
+    @Override
+    public int maxMessageSize() {
+        return MAX_DATAGRAM;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            logger.debug("Error closing invalidation channel: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.hello_spring.services;
+
+import com.example.hello_spring.repositories.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Username and email availability checks that skip the database for names that are certainly
+ * free, which is nearly every name a signup form asks about. A {@link BloomFilter} over all
+ * usernames and emails is filled from the users table while the context starts, i.e. before the
+ * application reports ready, and every insert or update of a user adds its names (see
+ * {@link com.example.hello_spring.entities.UserChangeListener}). A name the filter has never seen
+ * is reported available straight away; only possible positives are checked against the table,
+ * all of them in one IN query per batch.
+ *
+ * Names are added when the row is written, before commit, so the filter can only err towards
+ * sending a name to the database. Deleted or renamed users leave their old names behind as
+ * false positives until the filter is next rebuilt. The filter is sized from
+ * {@code users.availability.expected-users}; past that the false-positive rate (reported in
+ * {@link #stats()}) climbs, but answers stay correct.
+ *
+ * With the cache invalidation bus enabled, names written on this node are also published to the
+ * peers, which add them to their filters, so a name taken on another replica stops being reported
+ * free within the bus flush interval. Until a peer's names arrive a name may be reported free
+ * while taken; the unique constraints still reject the insert. The bus is lossy, so the filter is
+ * also rebuilt from the table every {@code users.availability.rebuild-interval-seconds}, which
+ * bounds how long a lost datagram keeps a taken name "available".
+ */
+@Service
+public class UserAvailabilityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserAvailabilityService.class);
+
+    private static final String USERNAME_PREFIX = "u:";
+    private static final String EMAIL_PREFIX = "e:";
+    private static final String BUS_PREFIX = "user-name:";
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long expectedNames;
+    private final double falsePositiveRate;
+    private volatile BloomFilter filter;
+    // Filter being filled by a rebuild; names written meanwhile go into it as well
+    private volatile BloomFilter rebuilding;
+
+    private final LongAdder definitelyAbsent = new LongAdder();
+    private final LongAdder databaseChecked = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder databaseQueries = new LongAdder();
+
+    private volatile boolean ready;
+    private volatile CacheInvalidationBus invalidationBus;
+
+    /**
+     * @param expectedUsers     Users the filter is sized for (each contributes a username and an email)
+     * @param falsePositiveRate Target share of free names that still need a database check
+     */
+    public UserAvailabilityService(UserRepository userRepository, PlatformTransactionManager transactionManager,
+                                   @Value("${users.availability.expected-users:1000000}") long expectedUsers,
+                                   @Value("${users.availability.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.expectedNames = expectedUsers * 2;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedNames, falsePositiveRate);
+    }
+
+    /**
+     * Add every existing username and email to the filter. Until this finishes every name is
+     * checked against the database.
+     */
+    @PostConstruct
+    public void build() {
+        long start = System.nanoTime();
+        long users = fill(filter);
+        ready = true;
+        logger.info("Built availability filter from {} users in {} ms ({} bits, {} hash functions)",
+            users, (System.nanoTime() - start) / 1_000_000, filter.bitCount(), filter.hashFunctions());
+    }
+
+    /**
+     * Replace the filter with one freshly filled from the table. Drops names of deleted or
+     * renamed users, and picks up names whose peer datagram never arrived. The current filter
+     * keeps answering until the new one is complete.
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        BloomFilter fresh = new BloomFilter(expectedNames, falsePositiveRate);
+        rebuilding = fresh;
+        try {
+            long users = fill(fresh);
+            filter = fresh;
+            logger.debug("Rebuilt availability filter from {} users in {} ms",
+                users, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "#{${users.availability.rebuild-interval-seconds:600} * 1000}",
+               initialDelayString = "#{${users.availability.rebuild-interval-seconds:600} * 1000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // The current filter stays in use
+            logger.warn("Failed to rebuild availability filter: {}", e.getMessage());
+        }
+    }
+
+    private long fill(BloomFilter target) {
+        return readOnlyTransaction.execute(status -> {
+            long count = 0;
+            try (Stream<Object[]> rows = userRepository.streamUsernamesAndEmails()) {
+                for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                    if (row[0] != null) {
+                        target.put(USERNAME_PREFIX + row[0]);
+                    }
+                    if (row[1] != null) {
+                        target.put(EMAIL_PREFIX + row[1]);
+                    }
+                    count++;
+                }
+            }
+            return count;
+        });
+    }
+
+    /**
+     * Record a written user's names. Called for every insert and update.
+     */
+    public void userSaved(String username, String email) {
+        add(USERNAME_PREFIX, username);
+        add(EMAIL_PREFIX, email);
+        CacheInvalidationBus bus = invalidationBus;
+        if (bus != null) {
+            if (username != null) {
+                bus.publish(BUS_PREFIX + USERNAME_PREFIX + username);
+            }
+            if (email != null) {
+                bus.publish(BUS_PREFIX + EMAIL_PREFIX + email);
+            }
+        }
+    }
+
+    /**
+     * Publish saved names to the peers, and add theirs here without re-publishing.
+     *
+     * @param bus The invalidation bus shared with peer nodes
+     */
+    @Autowired(required = false)
+    public void setInvalidationBus(CacheInvalidationBus bus) {
+        bus.addListener(new CacheInvalidationBus.Listener() {
+            @Override
+            public void invalidate(List<String> keys) {
+                for (String key : keys) {
+                    if (key.startsWith(BUS_PREFIX)) {
+                        // Still carries the username or email prefix
+                        put(key.substring(BUS_PREFIX.length()));
+                    }
+                }
+            }
+
+            @Override
+            public void clear() {
+                // A peer cleared its cache; no user was written
+            }
+        });
+        this.invalidationBus = bus;
+    }
+
+    private void add(String prefix, String name) {
+        if (name != null) {
+            put(prefix + name);
+        }
+    }
+
+    private void put(String name) {
+        // Read before the filter: once a rebuild clears it, the filter is already the new one
+        BloomFilter next = rebuilding;
+        filter.put(name);
+        if (next != null) {
+            next.put(name);
+        }
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        return check(List.of(username), List.of()).getUsernames().get(username);
+    }
+
+    public boolean isEmailAvailable(String email) {
+        return check(List.of(), List.of(email)).getEmails().get(email);
+    }
+
+    /**
+     * Check many candidate names at once. Costs at most one query for the usernames and one for
+     * the emails, and none for names the filter rules out.
+     */
+    public Result check(Collection<String> usernames, Collection<String> emails) {
+        return new Result(
+            check(usernames, USERNAME_PREFIX, userRepository::findExistingUsernames),
+            check(emails, EMAIL_PREFIX, userRepository::findExistingEmails));
+    }
+
+    public Stats stats() {
+        BloomFilter filter = this.filter;
+        return new Stats(ready, filter.bitCount(), filter.hashFunctions(), filter.currentFalsePositiveRate(),
+            definitelyAbsent.sum(), databaseChecked.sum(), falsePositives.sum(), databaseQueries.sum());
+    }
+
+    private Map<String, Boolean> check(Collection<String> candidates, String prefix,
+                                       Function<Collection<String>, List<String>> findExisting) {
+        Map<String, Boolean> available = new LinkedHashMap<>();
+        List<String> possiblyTaken = new ArrayList<>();
+        for (String candidate : new LinkedHashSet<>(candidates)) {
+            if (ready && !filter.mightContain(prefix + candidate)) {
+                available.put(candidate, true);
+                definitelyAbsent.increment();
+            } else {
+                available.put(candidate, false);
+                possiblyTaken.add(candidate);
+            }
+        }
+        if (!possiblyTaken.isEmpty()) {
+            databaseQueries.increment();
+            databaseChecked.add(possiblyTaken.size());
+            Set<String> taken = new HashSet<>(findExisting.apply(possiblyTaken));
+            for (String candidate : possiblyTaken) {
+                if (!taken.contains(candidate)) {
+                    available.put(candidate, true);
+                    if (ready) {
+                        falsePositives.increment();
+                    }
+                }
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Data class for availability per candidate name (true when free)
+     */
+    public static class Result {
+        private final Map<String, Boolean> usernames;
+        private final Map<String, Boolean> emails;
+
+        public Result(Map<String, Boolean> usernames, Map<String, Boolean> emails) {
+            this.usernames = usernames;
+            this.emails = emails;
+        }
+
+        // Getters
+        public Map<String, Boolean> getUsernames() { return usernames; }
+        public Map<String, Boolean> getEmails() { return emails; }
+    }
+
+    /**
+     * Data class for filter size and how often it saved a query
+     */
+    public static class Stats {
+        private final boolean ready;
+        private final long bits;
+        private final int hashFunctions;
+        private final double estimatedFalsePositiveRate;
+        private final long definitelyAbsent;
+        private final long databaseChecked;
+        private final long falsePositives;
+        private final long databaseQueries;
+
+        public Stats(boolean ready, long bits, int hashFunctions, double estimatedFalsePositiveRate,
+                     long definitelyAbsent, long databaseChecked, long falsePositives, long databaseQueries) {
+            this.ready = ready;
+            this.bits = bits;
+            this.hashFunctions = hashFunctions;
+            this.estimatedFalsePositiveRate = estimatedFalsePositiveRate;
+            this.definitelyAbsent = definitelyAbsent;
+            this.databaseChecked = databaseChecked;
+            this.falsePositives = falsePositives;
+            this.databaseQueries = databaseQueries;
+        }
+
+        // Getters
+        public boolean isReady() { return ready; }
+        public long getBits() { return bits; }
+        public int getHashFunctions() { return hashFunctions; }
+        public double getEstimatedFalsePositiveRate() { return estimatedFalsePositiveRate; }
+        public long getDefinitelyAbsent() { return definitelyAbsent; }
+        public long getDatabaseChecked() { return databaseChecked; }
+        public long getFalsePositives() { return falsePositives; }
+        public long getDatabaseQueries() { return databaseQueries; }
+    }
+}
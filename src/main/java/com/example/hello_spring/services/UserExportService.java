@@ -0,0 +1,105 @@
+package com.example.hello_spring.services;
+
+import com.example.hello_spring.entities.User;
+import com.example.hello_spring.repositories.UserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams the users table to an output stream without materializing it.
+ * Each row is written and then detached, so heap usage stays flat regardless of table size.
+ */
+@Service
+public class UserExportService {
+
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public UserExportService(UserRepository userRepository, EntityManager entityManager,
+                             ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write all users as newline-delimited JSON, one object per line.
+     *
+     * @return Number of users written
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        long count = 0;
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (Stream<User> users = userRepository.streamAllOrderById()) {
+            Iterator<User> it = users.iterator();
+            while (it.hasNext()) {
+                User user = it.next();
+                objectMapper.writeValue(generator, user);
+                generator.writeRaw('\n');
+                entityManager.detach(user);
+                count++;
+            }
+        }
+        generator.flush();
+        return count;
+    }
+
+    /**
+     * Write all users as CSV with a header row.
+     *
+     * @return Number of users written
+     */
+    @Transactional(readOnly = true)
+    public long exportCsv(OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,username,email,createdAt\n");
+        try (Stream<User> users = userRepository.streamAllOrderById()) {
+            Iterator<User> it = users.iterator();
+            while (it.hasNext()) {
+                User user = it.next();
+                writer.write(String.valueOf(user.getId()));
+                writer.write(',');
+                writer.write(csvField(user.getUsername()));
+                writer.write(',');
+                writer.write(csvField(user.getEmail()));
+                writer.write(',');
+                writer.write(user.getCreatedAt() != null ? user.getCreatedAt().toString() : "");
+                writer.write('\n');
+                entityManager.detach(user);
+                count++;
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Quote a CSV field when it contains a separator, quote or line break.
+     */
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.hello_spring.services;
+
+import com.example.hello_spring.entities.User;
+import com.example.hello_spring.repositories.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk user import. Reads a JSON array or NDJSON stream row by row and inserts it in
+ * chunks of {@code users.import.batch-size}, one transaction and one JDBC batch per chunk.
+ * Username conflicts are reported per row instead of failing the whole import.
+ * Inserted users are detached after each chunk, so the persistence context (which open session
+ * in view keeps for the whole request) does not grow with the import.
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+
+    private final UserRepository userRepository;
+    private final UserLookupService userLookupService;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${users.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${users.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public UserImportService(UserRepository userRepository, UserLookupService userLookupService,
+                             ObjectMapper objectMapper, EntityManager entityManager,
+                             PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.userLookupService = userLookupService;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Import users from a JSON array or a newline-delimited stream of JSON objects,
+     * each with {@code username} and {@code email}.
+     */
+    public ImportResult importUsers(InputStream in) throws IOException {
+        ImportResult result = new ImportResult(maxReportedErrors);
+        List<Row> chunk = new ArrayList<>(batchSize);
+
+        try (MappingIterator<JsonNode> it = objectMapper.readerFor(JsonNode.class).readValues(in)) {
+            int index = 0;
+            while (it.hasNextValue()) {
+                JsonNode node = it.nextValue();
+                Row row = new Row(index++, text(node, "username"), text(node, "email"));
+                result.received++;
+                if (row.username == null || row.email == null) {
+                    result.reject(row, "username and email are required");
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() >= batchSize) {
+                    importChunk(chunk, result);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result);
+        }
+        result.errors.sort(Comparator.comparingInt(RowError::getIndex));
+
+        logger.info("User import finished: {} received, {} inserted, {} rejected",
+            result.received, result.inserted, result.rejected);
+        return result;
+    }
+
+    private void importChunk(List<Row> chunk, ImportResult result) {
+        // Drop duplicates within the chunk, then usernames already in the table (one IN query)
+        Set<String> usernames = new HashSet<>();
+        List<Row> candidates = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (usernames.add(row.username)) {
+                candidates.add(row);
+            } else {
+                result.reject(row, "duplicate username in import");
+            }
+        }
+        Set<String> taken = new HashSet<>(userRepository.findExistingUsernames(usernames));
+
+        List<Row> toInsert = new ArrayList<>(candidates.size());
+        for (Row row : candidates) {
+            if (taken.contains(row.username)) {
+                result.reject(row, "username already exists");
+            } else {
+                toInsert.add(row);
+            }
+        }
+        if (toInsert.isEmpty()) {
+            return;
+        }
+
+        try {
+            insert(toInsert);
+            result.inserted += toInsert.size();
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent writer took one of the names; retry row by row to isolate it
+            logger.debug("Batch insert hit a constraint violation, retrying {} rows individually", toInsert.size());
+            for (Row row : toInsert) {
+                try {
+                    insert(List.of(row));
+                    result.inserted++;
+                } catch (DataIntegrityViolationException rowError) {
+                    result.reject(row, "username already exists");
+                }
+            }
+        }
+    }
+
+    private void insert(List<Row> rows) {
+        List<User> users = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            users.add(new User(row.username, row.email));
+        }
+        transactionTemplate.executeWithoutResult(status -> userRepository.saveAll(users));
+        // Committed; without this every later flush would dirty-check all earlier rows
+        entityManager.clear();
+        // Clear any cached "not found" entries for the new names
+        userLookupService.evictAll(users);
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || !value.isTextual() || value.asText().isBlank()) {
+            return null;
+        }
+        return value.asText();
+    }
+
+    private static class Row {
+        private final int index;
+        private final String username;
+        private final String email;
+
+        Row(int index, String username, String email) {
+            this.index = index;
+            this.username = username;
+            this.email = email;
+        }
+    }
+
+    /**
+     * Data class for the outcome of an import
+     */
+    public static class ImportResult {
+        private final int maxReportedErrors;
+        private final List<RowError> errors = new ArrayList<>();
+        private long received;
+        private long inserted;
+        private long rejected;
+
+        ImportResult(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        void reject(Row row, String reason) {
+            rejected++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new RowError(row.index, row.username, reason));
+            }
+        }
+
+        // Getters
+        public long getReceived() { return received; }
+        public long getInserted() { return inserted; }
+        public long getRejected() { return rejected; }
+        public List<RowError> getErrors() { return errors; }
+    }
+
+    /**
+     * Data class for a rejected import row
+     */
+    public static class RowError {
+        private final int index;
+        private final String username;
+        private final String reason;
+
+        public RowError(int index, String username, String reason) {
+            this.index = index;
+            this.username = username;
+            this.reason = reason;
+        }
+
+        // Getters
+        public int getIndex() { return index; }
+        public String getUsername() { return username; }
+        public String getReason() { return reason; }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.hello_spring.services;
+
+import com.example.hello_spring.entities.User;
+import com.example.hello_spring.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache in front of {@link UserRepository} lookups, backed by {@link CacheService}.
+ * Hits are kept for the cache TTL; misses are cached for a short negative TTL so repeated
+ * checks for unknown names don't reach the database either. Writes go through {@link #save}
+ * so the cached entries are repopulated rather than left stale.
+ *
+ * Only usernames are cached. {@code users.email} has no unique constraint, so an email can map to
+ * several users and there is no single row to keep under it; {@link #findByEmail} always asks
+ * the repository.
+ *
+ * Lookups that miss here fall through to Hibernate's second-level and query caches, which are
+ * local to each node. Writes made through this service are also announced over the
+ * invalidation bus, and a node that hears of a peer's write evicts those regions too, so the
+ * reload cannot bring back the row (or "not found") from before the write. Reads never publish.
+ */
+@Service
+public class UserLookupService {
+
+    private static final String USERNAME_PREFIX = "user:username:";
+    // Published on writes only, so peers evict their second-level caches for writes but not reads
+    private static final String WRITTEN_PREFIX = "user-written:";
+
+    private final UserRepository userRepository;
+    private final CacheService cacheService;
+    private final SecondLevelCacheService secondLevelCacheService;
+    private volatile CacheInvalidationBus invalidationBus;
+
+    @Value("${users.cache.negative-ttl-seconds:30}")
+    private long negativeTtlSeconds;
+
+    public UserLookupService(UserRepository userRepository, CacheService cacheService,
+                             SecondLevelCacheService secondLevelCacheService) {
+        this.userRepository = userRepository;
+        this.cacheService = cacheService;
+        this.secondLevelCacheService = secondLevelCacheService;
+    }
+
+    /**
+     * Tell peers about user writes, and evict the second-level caches when a peer reports one.
+     * The peer's cache keys are dropped again after the eviction, as a lookup may have reloaded
+     * them from the second-level cache between the cache's own invalidation and the eviction.
+     *
+     * @param bus The invalidation bus shared with peer nodes
+     */
+    @Autowired(required = false)
+    public void setInvalidationBus(CacheInvalidationBus bus) {
+        bus.addListener(new CacheInvalidationBus.Listener() {
+            @Override
+            public void invalidate(List<String> keys) {
+                List<String> userKeys = keys.stream()
+                    .filter(key -> key.startsWith(WRITTEN_PREFIX))
+                    .map(key -> key.substring(WRITTEN_PREFIX.length()))
+                    .toList();
+                if (!userKeys.isEmpty()) {
+                    secondLevelCacheService.evictUsers();
+                    userKeys.forEach(cacheService::invalidateLocal);
+                }
+            }
+
+            @Override
+            public void clear() {
+                // A peer cleared its cache; no user was written
+            }
+        });
+        this.invalidationBus = bus;
+    }
+
+    /**
+     * Find a user by username, going to the database only on a cache miss.
+     */
+    public Optional<User> findByUsername(String username) {
+        return lookup(USERNAME_PREFIX + username, () -> userRepository.findByUsername(username));
+    }
+
+    /**
+     * Find the oldest user with an email. Not cached, since emails are not unique.
+     */
+    public Optional<User> findByEmail(String email) {
+        return userRepository.findFirstByEmailOrderByIdAsc(email);
+    }
+
+    /**
+     * Check whether a username is taken. Shares cache entries with {@link #findByUsername}.
+     */
+    public boolean existsByUsername(String username) {
+        return findByUsername(username).isPresent();
+    }
+
+    /**
+     * Save a user and repopulate its cache entries, replacing any cached miss.
+     */
+    public User save(User user) {
+        User saved = userRepository.save(user);
+        cacheService.put(USERNAME_PREFIX + saved.getUsername(), saved);
+        publishWrite(saved.getUsername());
+        return saved;
+    }
+
+    /**
+     * Drop cached entries for a user written outside {@link #save}, e.g. by a bulk import,
+     * including the second-level caches.
+     */
+    public void evict(String username) {
+        secondLevelCacheService.evictUsers();
+        cacheService.delete(USERNAME_PREFIX + username);
+        publishWrite(username);
+    }
+
+    /**
+     * {@link #evict} for a batch of users, evicting the second-level caches once.
+     */
+    public void evictAll(Collection<User> users) {
+        secondLevelCacheService.evictUsers();
+        for (User user : users) {
+            cacheService.delete(USERNAME_PREFIX + user.getUsername());
+            publishWrite(user.getUsername());
+        }
+    }
+
+    private void publishWrite(String username) {
+        CacheInvalidationBus bus = invalidationBus;
+        if (bus != null) {
+            bus.publish(WRITTEN_PREFIX + USERNAME_PREFIX + username);
+        }
+    }
+
+    private Optional<User> lookup(String key, Supplier<Optional<User>> loader) {
+        // Concurrent misses on the same key share a single database query
+        Function<String, Object> load = k -> loader.get()
+            .<Object>map(user -> user)
+            .orElseGet(() -> new Miss(System.currentTimeMillis() + negativeTtlSeconds * 1000));
+
+        // Quiet read, so a lookup is counted once (by getOrLoad) in the cache statistics
+        Object cached = cacheService.peekLocal(key);
+        if (cached instanceof Miss && ((Miss) cached).isExpired()) {
+            // Local only: a read must not invalidate the peers' entries
+            cacheService.invalidateLocal(key);
+        }
+        cached = cacheService.getOrLoad(key, load);
+        return cached instanceof User ? Optional.of((User) cached) : Optional.empty();
+    }
+
+    /**
+     * Negative cache marker. Carries its own deadline because misses should
+     * expire well before the cache-wide TTL.
+     */
+    private static final class Miss {
+        private final long expiresAt;
+
+        Miss(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
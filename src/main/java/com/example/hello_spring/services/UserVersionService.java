@@ -0,0 +1,117 @@
+package com.example.hello_spring.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Version counters for the users table, used as strong ETags so unchanged user reads can be
+ * answered with 304 before touching the database or serializing anything.
+ *
+ * The table version is bumped on every user write. Per-user versions are striped by username
+ * into a fixed array, so memory stays constant; two users sharing a stripe only cost each other
+ * a spurious cache miss, never a stale 304. Updates and deletes could rename a user, so they also
+ * bump a generation shared by all per-user ETags. Every ETag carries the startup time, so
+ * counters that restart from zero never repeat an ETag from an earlier run.
+ *
+ * Counters only see writes made through JPA (or the reactive API) in this JVM. When the cache
+ * invalidation bus is enabled, each bump is also published to the peers, which bump their own
+ * counters, so a write on one replica invalidates the ETags handed out by the others within
+ * the bus flush interval. Writes made outside the application are not seen at all.
+ */
+@Service
+public class UserVersionService {
+
+    private static final int STRIPES = 4096;
+    private static final String INSERTED_PREFIX = "user-version:inserted:";
+    private static final String CHANGED_PREFIX = "user-version:changed:";
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong tableVersion = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLongArray userVersions = new AtomicLongArray(STRIPES);
+    private volatile CacheInvalidationBus invalidationBus;
+
+    /**
+     * A user row was inserted.
+     */
+    public void userInserted(String username) {
+        bumpInserted(username);
+        publish(INSERTED_PREFIX, username);
+    }
+
+    /**
+     * A user row was updated or deleted.
+     */
+    public void userChanged(String username) {
+        bumpChanged(username);
+        publish(CHANGED_PREFIX, username);
+    }
+
+    /**
+     * Publish version bumps to the peers, and apply theirs here without re-publishing.
+     *
+     * @param bus The invalidation bus shared with peer nodes
+     */
+    @Autowired(required = false)
+    public void setInvalidationBus(CacheInvalidationBus bus) {
+        bus.addListener(new CacheInvalidationBus.Listener() {
+            @Override
+            public void invalidate(List<String> keys) {
+                for (String key : keys) {
+                    if (key.startsWith(INSERTED_PREFIX)) {
+                        bumpInserted(key.substring(INSERTED_PREFIX.length()));
+                    } else if (key.startsWith(CHANGED_PREFIX)) {
+                        bumpChanged(key.substring(CHANGED_PREFIX.length()));
+                    }
+                }
+            }
+
+            @Override
+            public void clear() {
+                // A peer cleared its cache; no user was written
+            }
+        });
+        this.invalidationBus = bus;
+    }
+
+    /**
+     * ETag covering the whole users collection (every page of {@code /users}).
+     */
+    public String collectionETag() {
+        return "\"users-" + epoch + "-" + tableVersion.get() + "\"";
+    }
+
+    /**
+     * ETag covering lookups of one username, whether or not that user exists.
+     */
+    public String userETag(String username) {
+        return "\"user-" + epoch + "-" + generation.get() + "-" + userVersions.get(stripe(username)) + "\"";
+    }
+
+    private void bumpInserted(String username) {
+        tableVersion.incrementAndGet();
+        userVersions.incrementAndGet(stripe(username));
+    }
+
+    private void bumpChanged(String username) {
+        tableVersion.incrementAndGet();
+        generation.incrementAndGet();
+        userVersions.incrementAndGet(stripe(username));
+    }
+
+    private void publish(String prefix, String username) {
+        CacheInvalidationBus bus = invalidationBus;
+        if (bus != null && username != null) {
+            bus.publish(prefix + username);
+        }
+    }
+
+    private static int stripe(String username) {
+        int h = username != null ? username.hashCode() : 0;
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
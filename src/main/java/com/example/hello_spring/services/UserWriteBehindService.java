@@ -0,0 +1,311 @@
+package com.example.hello_spring.services;
+
+import com.example.hello_spring.entities.User;
+import com.example.hello_spring.repositories.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind for single-user creates. Callers enqueue a user and get a future; one flusher
+ * thread drains the queue into batches of up to {@code users.write-behind.batch-size} rows,
+ * waiting at most {@code users.write-behind.flush-interval} after the first row of a batch, and
+ * inserts each batch in one transaction and one JDBC batch. A signup burst then costs one round
+ * trip per batch instead of one transaction per request.
+ *
+ * Each future completes with the saved user (including its generated id) once its batch has
+ * committed, or fails with {@link DuplicateKeyException} if the username was taken, either in the
+ * table or earlier in the same batch. The queue is bounded: when it stays full for
+ * {@code users.write-behind.enqueue-timeout}, {@link #submit} rejects the user so callers see
+ * backpressure instead of unbounded latency.
+ */
+@Service
+@ConditionalOnProperty(name = "users.write-behind.enabled", havingValue = "true")
+public class UserWriteBehindService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserWriteBehindService.class);
+
+    private final UserRepository userRepository;
+    private final UserLookupService userLookupService;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingUser> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long enqueueTimeoutNanos;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    /**
+     * @param capacity       Users that may wait in the queue
+     * @param batchSize      Most rows per insert batch
+     * @param flushInterval  Longest a queued user waits for its batch to fill up
+     * @param enqueueTimeout How long {@link #submit} waits for room in a full queue
+     */
+    public UserWriteBehindService(UserRepository userRepository, UserLookupService userLookupService,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${users.write-behind.queue-capacity:10000}") int capacity,
+                                  @Value("${users.write-behind.batch-size:100}") int batchSize,
+                                  @Value("${users.write-behind.flush-interval:5ms}") Duration flushInterval,
+                                  @Value("${users.write-behind.enqueue-timeout:100ms}") Duration enqueueTimeout) {
+        if (capacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Write-behind queue capacity and batch size must be positive");
+        }
+        this.userRepository = userRepository;
+        this.userLookupService = userLookupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.enqueueTimeoutNanos = enqueueTimeout.toNanos();
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::run, "user-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        logger.info("User write-behind enabled: batches of up to {} rows every {} ms, queue capacity {}",
+            batchSize, TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos), queue.remainingCapacity());
+    }
+
+    /**
+     * Flush whatever is still queued, then stop the flusher. Users the flusher has not taken
+     * within 10 seconds are failed with {@link RejectedExecutionException}, so no caller is left
+     * waiting on a future that will never complete.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        List<PendingUser> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        if (!abandoned.isEmpty()) {
+            logger.warn("User write-behind stopped with {} users still queued; failing them", abandoned.size());
+            RejectedExecutionException stopped = new RejectedExecutionException("User write-behind stopped");
+            for (PendingUser pending : abandoned) {
+                if (pending.future.completeExceptionally(stopped)) {
+                    failed.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue a user for insertion.
+     *
+     * @throws RejectedExecutionException if the queue stays full for the enqueue timeout
+     */
+    public CompletableFuture<User> submit(String username, String email) {
+        PendingUser pending = new PendingUser(username, email);
+        boolean queued;
+        try {
+            queued = running && queue.offer(pending, enqueueTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            rejected.increment();
+            throw new RejectedExecutionException("User write-behind queue is full");
+        }
+        submitted.increment();
+        return pending.future;
+    }
+
+    public Stats stats() {
+        return new Stats(queue.size(), queue.size() + queue.remainingCapacity(), submitted.sum(), rejected.sum(),
+            batches.sum(), inserted.sum(), conflicts.sum(), failed.sum());
+    }
+
+    private void run() {
+        List<PendingUser> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingUser first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    // Take whatever is already queued, then wait out the rest of the interval
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PendingUser next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Insert one batch and complete its futures.
+     */
+    void flush(List<PendingUser> batch) {
+        batches.increment();
+        try {
+            // Reject usernames repeated within the batch, then those already in the table (one IN query)
+            Set<String> usernames = new HashSet<>();
+            List<PendingUser> candidates = new ArrayList<>(batch.size());
+            for (PendingUser pending : batch) {
+                if (usernames.add(pending.username)) {
+                    candidates.add(pending);
+                } else {
+                    conflict(pending);
+                }
+            }
+            Set<String> taken = new HashSet<>(userRepository.findExistingUsernames(usernames));
+            List<PendingUser> toInsert = new ArrayList<>(candidates.size());
+            for (PendingUser pending : candidates) {
+                if (taken.contains(pending.username)) {
+                    conflict(pending);
+                } else {
+                    toInsert.add(pending);
+                }
+            }
+            if (toInsert.isEmpty()) {
+                return;
+            }
+
+            try {
+                insert(toInsert);
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent writer took one of the names; retry row by row to isolate it
+                logger.debug("Write-behind batch hit a constraint violation, retrying {} rows individually",
+                    toInsert.size());
+                for (PendingUser pending : toInsert) {
+                    try {
+                        insert(List.of(pending));
+                    } catch (DataIntegrityViolationException rowError) {
+                        conflict(pending);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Write-behind batch of {} users failed: {}", batch.size(), e.getMessage());
+            for (PendingUser pending : batch) {
+                if (pending.future.completeExceptionally(e)) {
+                    failed.increment();
+                }
+            }
+        }
+    }
+
+    private void insert(List<PendingUser> pendingUsers) {
+        // Fresh entities on every attempt: a rolled-back batch leaves ids assigned on the old ones
+        List<User> users = new ArrayList<>(pendingUsers.size());
+        for (PendingUser pending : pendingUsers) {
+            users.add(new User(pending.username, pending.email));
+        }
+        List<User> saved = transactionTemplate.execute(status -> userRepository.saveAll(users));
+        inserted.add(saved.size());
+        // Clear any cached "not found" entries for the new names
+        userLookupService.evictAll(saved);
+        for (int i = 0; i < saved.size(); i++) {
+            pendingUsers.get(i).future.complete(saved.get(i));
+        }
+    }
+
+    private void conflict(PendingUser pending) {
+        conflicts.increment();
+        pending.future.completeExceptionally(
+            new DuplicateKeyException("username already exists: " + pending.username));
+    }
+
+    static final class PendingUser {
+        private final String username;
+        private final String email;
+        private final CompletableFuture<User> future = new CompletableFuture<>();
+
+        PendingUser(String username, String email) {
+            this.username = username;
+            this.email = email;
+        }
+
+        CompletableFuture<User> future() {
+            return future;
+        }
+    }
+
+    /**
+     * Data class for queue depth and flush counters
+     */
+    public static class Stats {
+        private final int queued;
+        private final int capacity;
+        private final long submitted;
+        private final long rejected;
+        private final long batches;
+        private final long inserted;
+        private final long conflicts;
+        private final long failed;
+
+        public Stats(int queued, int capacity, long submitted, long rejected, long batches, long inserted,
+                     long conflicts, long failed) {
+            this.queued = queued;
+            this.capacity = capacity;
+            this.submitted = submitted;
+            this.rejected = rejected;
+            this.batches = batches;
+            this.inserted = inserted;
+            this.conflicts = conflicts;
+            this.failed = failed;
+        }
+
+        // Getters
+        public int getQueued() { return queued; }
+        public int getCapacity() { return capacity; }
+        public long getSubmitted() { return submitted; }
+        public long getRejected() { return rejected; }
+        public long getBatches() { return batches; }
+        public long getInserted() { return inserted; }
+        public long getConflicts() { return conflicts; }
+        public long getFailed() { return failed; }
+
+        public double getMeanBatchSize() {
+            return batches == 0 ? 0.0 : (double) (inserted + conflicts + failed) / batches;
+        }
+    }
+}
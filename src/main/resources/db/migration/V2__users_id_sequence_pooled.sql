@@ -0,0 +1,5 @@
+-- Let Hibernate batch inserts into users
+-- The entity now draws ids from users_id_seq with a pooled optimizer (allocationSize = 50),
+-- so the sequence increment must match. IDENTITY generation disabled JDBC insert batching.
+-- The column default keeps working for raw inserts; each one just consumes a block of 50.
+ALTER SEQUENCE IF EXISTS users_id_seq INCREMENT BY 50;
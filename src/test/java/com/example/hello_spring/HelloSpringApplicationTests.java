@@ -5,6 +5,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -14,7 +18,9 @@ import static org.junit.jupiter.api.Assertions.*;
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @TestPropertySource(properties = {
     "spring.devtools.restart.enabled=false",
-    "spring.profiles.active=test"
+    "spring.profiles.active=test",
+    "db.pool.adaptive.enabled=true",
+    "management.endpoints.web.exposure.include=health,metrics"
 })
 class HelloSpringApplicationTests {
 
@@ -67,4 +73,196 @@ class HelloSpringApplicationTests {
     double usagePercentage = json.get("usagePercentage").asDouble();
     assertTrue(usagePercentage >= 0 && usagePercentage <= 100);
   }
+
+  @Test
+  void memoryEndpointReportsSampledJvmTelemetry() throws Exception {
+    String url = "http://localhost:" + port + "/memory";
+    JsonNode json = objectMapper.readTree(restTemplate.getForEntity(url, String.class).getBody());
+
+    assertTrue(json.get("sampledAt").asLong() > 0);
+    assertTrue(json.get("pools").size() > 0);
+    boolean hasHeapPool = false;
+    for (JsonNode pool : json.get("pools")) {
+      hasHeapPool |= "HEAP".equals(pool.get("type").asText());
+    }
+    assertTrue(hasHeapPool);
+    assertTrue(json.get("garbageCollectors").size() > 0);
+    assertTrue(json.get("threads").get("live").asInt() > 0);
+    assertTrue(json.has("allocationRateBytesPerSecond"));
+    boolean hasDirectPool = false;
+    for (JsonNode pool : json.get("bufferPools")) {
+      hasDirectPool |= "direct".equals(pool.get("name").asText());
+    }
+    assertTrue(hasDirectPool);
+  }
+
+  @Test
+  void usersExportStreamsNdjsonAndCsv() throws Exception {
+    String base = "http://localhost:" + port;
+    restTemplate.postForEntity(base + "/users?username=export1&email=export1@example.com", null, String.class);
+    restTemplate.postForEntity(base + "/users?username=export2&email=export2@example.com", null, String.class);
+
+    ResponseEntity<String> ndjson = restTemplate.getForEntity(base + "/users/export", String.class);
+    assertEquals(200, ndjson.getStatusCode().value());
+    boolean found = false;
+    for (String line : ndjson.getBody().split("\n")) {
+      JsonNode json = objectMapper.readTree(line);
+      found |= "export1".equals(json.get("username").asText());
+    }
+    assertTrue(found);
+
+    ResponseEntity<String> csv = restTemplate.getForEntity(base + "/users/export?format=csv", String.class);
+    assertEquals(200, csv.getStatusCode().value());
+    assertTrue(csv.getBody().startsWith("id,username,email,createdAt\n"));
+    assertTrue(csv.getBody().contains(",export2,export2@example.com,"));
+
+    ResponseEntity<String> unsupported = restTemplate.getForEntity(base + "/users/export?format=xml", String.class);
+    assertEquals(400, unsupported.getStatusCode().value());
+  }
+
+  @Test
+  void usersImportInsertsRowsAndReportsConflicts() throws Exception {
+    String base = "http://localhost:" + port;
+    restTemplate.postForEntity(base + "/users?username=import0&email=import0@example.com", null, String.class);
+
+    String body = "{\"username\":\"import0\",\"email\":\"dup@example.com\"}\n"
+        + "{\"username\":\"import1\",\"email\":\"import1@example.com\"}\n"
+        + "{\"username\":\"import1\",\"email\":\"again@example.com\"}\n"
+        + "{\"username\":\"import2\"}\n"
+        + "{\"username\":\"import3\",\"email\":\"import3@example.com\"}\n";
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.parseMediaType("application/x-ndjson"));
+    ResponseEntity<String> response = restTemplate.postForEntity(
+        base + "/users/import", new HttpEntity<>(body, headers), String.class);
+
+    assertEquals(200, response.getStatusCode().value());
+    JsonNode json = objectMapper.readTree(response.getBody());
+    assertEquals(5, json.get("received").asLong());
+    assertEquals(2, json.get("inserted").asLong());
+    assertEquals(3, json.get("rejected").asLong());
+    assertEquals(0, json.get("errors").get(0).get("index").asInt());
+
+    ResponseEntity<String> search = restTemplate.getForEntity(base + "/users/search?username=import3", String.class);
+    assertEquals("import3@example.com", objectMapper.readTree(search.getBody()).get("email").asText());
+  }
+
+  @Test
+  void availabilityReflectsNewUsers() throws Exception {
+    String base = "http://localhost:" + port;
+    restTemplate.postForEntity(base + "/users?username=taken_name&email=taken@example.com", null, String.class);
+
+    String body = "{\"usernames\":[\"taken_name\",\"free_name\"],\"emails\":[\"taken@example.com\"]}";
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    ResponseEntity<String> response = restTemplate.postForEntity(
+        base + "/users/availability", new HttpEntity<>(body, headers), String.class);
+
+    assertEquals(200, response.getStatusCode().value());
+    JsonNode json = objectMapper.readTree(response.getBody());
+    assertFalse(json.get("usernames").get("taken_name").asBoolean());
+    assertTrue(json.get("usernames").get("free_name").asBoolean());
+    assertFalse(json.get("emails").get("taken@example.com").asBoolean());
+
+    JsonNode single = objectMapper.readTree(
+        restTemplate.getForEntity(base + "/users/availability?username=another_free_name", String.class).getBody());
+    assertTrue(single.get("usernames").get("another_free_name").asBoolean());
+  }
+
+  @Test
+  void cacheStatsReportsHitRateAndMeters() throws Exception {
+    String base = "http://localhost:" + port;
+    restTemplate.getForEntity(base + "/cache/demo", String.class);
+    restTemplate.getForEntity(base + "/cache/demo", String.class);
+
+    JsonNode stats = objectMapper.readTree(restTemplate.getForEntity(base + "/cache/stats", String.class).getBody());
+    assertTrue(stats.has("size"));
+    assertTrue(stats.get("hitCount").asLong() >= 1);
+    assertTrue(stats.has("hitRate"));
+    assertTrue(stats.has("evictionCount"));
+    assertTrue(stats.has("averageLoadPenaltyMillis"));
+
+    ResponseEntity<String> meter = restTemplate.getForEntity(
+        base + "/actuator/metrics/cache.gets?tag=cache:cacheService", String.class);
+    assertEquals(200, meter.getStatusCode().value());
+  }
+
+  @Test
+  void routeMetricsBreakDownRequestsPerRoute() throws Exception {
+    String base = "http://localhost:" + port;
+    restTemplate.postForEntity(base + "/users?username=metrics_user&email=metrics@example.com", null, String.class);
+    restTemplate.getForEntity(base + "/users/search?username=metrics_user", String.class);
+    restTemplate.getForEntity(base + "/users/search?username=unknown_metrics_user", String.class);
+
+    JsonNode json = objectMapper.readTree(restTemplate.getForEntity(base + "/metrics/routes", String.class).getBody());
+    JsonNode search = null;
+    for (JsonNode route : json.get("routes")) {
+      if (route.get("route").asText().equals("/users/search")) {
+        search = route;
+      }
+    }
+    assertNotNull(search);
+    assertTrue(search.get("count").asLong() >= 2);
+    assertTrue(search.get("p99Millis").asDouble() > 0);
+    assertTrue(search.get("meanResponseBytes").asDouble() > 0);
+    // The unknown name misses the cache and queries the database
+    assertTrue(search.get("meanDbStatements").asDouble() > 0);
+    assertTrue(search.get("meanSerializationMillis").asDouble() > 0);
+  }
+
+  @Test
+  void connectionPoolStatusShowsBoundsAndSize() throws Exception {
+    JsonNode json = objectMapper.readTree(
+        restTemplate.getForEntity("http://localhost:" + port + "/db/pool", String.class).getBody());
+
+    int size = json.get("maximumPoolSize").asInt();
+    assertTrue(size >= json.get("minSize").asInt() && size <= json.get("maxSize").asInt());
+    assertEquals(json.get("minSize").asInt(), json.get("minimumIdle").asInt());
+    assertTrue(json.get("acquireTargetMillis").asDouble() > 0);
+    assertTrue(json.get("decisions").isArray());
+  }
+
+  @Test
+  void startupReportShowsTimeToReadyAndDeferredBeans() throws Exception {
+    String base = "http://localhost:" + port;
+    JsonNode json = objectMapper.readTree(restTemplate.getForEntity(base + "/startup", String.class).getBody());
+
+    assertTrue(json.get("timeToReadyMillis").asLong() > 0);
+    assertTrue(json.get("springStartupMillis").asLong() > 0);
+    assertFalse(json.get("aotEnabled").asBoolean());
+    // Deferred beans are created once the application is ready, and still serve requests
+    assertTrue(json.get("deferredBeans").has("pingService"));
+    assertTrue(json.get("deferredBeans").has("jvmTelemetryService"));
+    assertEquals(200, restTemplate.getForEntity(base + "/ping-status", String.class).getStatusCode().value());
+  }
+
+  @Test
+  void userReadsAnswerNotModifiedUntilAUserIsWritten() throws Exception {
+    String base = "http://localhost:" + port;
+    String listUrl = base + "/users?limit=5";
+    String searchUrl = base + "/users/search?username=etag_user";
+    restTemplate.postForEntity(base + "/users?username=etag_user&email=etag@example.com", null, String.class);
+
+    for (String url : new String[] {listUrl, searchUrl}) {
+      String etag = restTemplate.getForEntity(url, String.class).getHeaders().getETag();
+      assertNotNull(etag);
+      ResponseEntity<String> cached = conditionalGet(url, etag);
+      assertEquals(304, cached.getStatusCode().value());
+      assertNull(cached.getBody());
+      assertEquals(etag, cached.getHeaders().getETag());
+    }
+
+    String listETag = restTemplate.getForEntity(listUrl, String.class).getHeaders().getETag();
+    String searchETag = restTemplate.getForEntity(searchUrl, String.class).getHeaders().getETag();
+    restTemplate.postForEntity(base + "/users?username=etag_other&email=etag_other@example.com", null, String.class);
+
+    // Another user was inserted: the collection changed, this user's lookup did not
+    assertEquals(200, conditionalGet(listUrl, listETag).getStatusCode().value());
+    assertEquals(304, conditionalGet(searchUrl, searchETag).getStatusCode().value());
+  }
+
+  private ResponseEntity<String> conditionalGet(String url, String etag) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setIfNoneMatch(etag);
+    return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+  }
 }
@@ -0,0 +1,89 @@
+package com.example.hello_spring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import reactor.netty.DisposableServer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The reactive user API next to the servlet one, on the same H2 database
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+    "spring.devtools.restart.enabled=false",
+    "spring.profiles.active=reactive,test",
+    "spring.datasource.url=jdbc:h2:mem:reactivetestdb",
+    "reactive.r2dbc.url=r2dbc:h2:mem:///reactivetestdb"
+})
+class ReactiveUserApiTests {
+
+  @LocalServerPort
+  private int port;
+
+  @Autowired
+  private DisposableServer reactiveUserServer;
+
+  private TestRestTemplate restTemplate = new TestRestTemplate();
+  private ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void reactiveWritesAreVisibleToBothStacks() throws Exception {
+    String reactive = "http://localhost:" + reactiveUserServer.port();
+    String servlet = "http://localhost:" + port;
+
+    ResponseEntity<String> created = restTemplate.postForEntity(
+        reactive + "/users?username=reactive1&email=reactive1@example.com", null, String.class);
+    assertEquals(200, created.getStatusCode().value());
+    assertTrue(objectMapper.readTree(created.getBody()).get("id").asLong() > 0);
+
+    ResponseEntity<String> conflict = restTemplate.postForEntity(
+        reactive + "/users?username=reactive1&email=other@example.com", null, String.class);
+    assertEquals(409, conflict.getStatusCode().value());
+
+    JsonNode viaReactive = objectMapper.readTree(
+        restTemplate.getForEntity(reactive + "/users/search?username=reactive1", String.class).getBody());
+    JsonNode viaServlet = objectMapper.readTree(
+        restTemplate.getForEntity(servlet + "/users/search?username=reactive1", String.class).getBody());
+    assertEquals(viaServlet, viaReactive);
+
+    JsonNode availability = objectMapper.readTree(
+        restTemplate.getForEntity(servlet + "/users/availability?username=reactive1", String.class).getBody());
+    assertFalse(availability.get("usernames").get("reactive1").asBoolean());
+  }
+
+  @Test
+  void reactiveListingPagesAndRevalidates() throws Exception {
+    String reactive = "http://localhost:" + reactiveUserServer.port();
+    restTemplate.postForEntity(reactive + "/users?username=rpage1&email=rpage1@example.com", null, String.class);
+    restTemplate.postForEntity(reactive + "/users?username=rpage2&email=rpage2@example.com", null, String.class);
+
+    ResponseEntity<String> first = restTemplate.getForEntity(reactive + "/users?limit=1", String.class);
+    JsonNode page = objectMapper.readTree(first.getBody());
+    assertEquals(1, page.get("items").size());
+    assertTrue(page.hasNonNull("next"));
+
+    JsonNode second = objectMapper.readTree(restTemplate.getForEntity(
+        reactive + "/users?limit=1&cursor=" + page.get("next").asText(), String.class).getBody());
+    assertNotEquals(page.get("items").get(0).get("id"), second.get("items").get(0).get("id"));
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setIfNoneMatch(first.getHeaders().getETag());
+    ResponseEntity<String> revalidated = restTemplate.exchange(
+        reactive + "/users?limit=1", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    assertEquals(304, revalidated.getStatusCode().value());
+
+    assertEquals(404, restTemplate.getForEntity(reactive + "/users/search?username=nobody", String.class)
+        .getStatusCode().value());
+  }
+}
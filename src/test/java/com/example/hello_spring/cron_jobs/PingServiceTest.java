@@ -0,0 +1,241 @@
+package com.example.hello_spring.cron_jobs;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for PingService against a local stub HTTP server
+ */
+class PingServiceTest {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/ok", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/down", exchange -> {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void testTargetsArePingedInParallelWithLatencyHistograms() throws Exception {
+        PingService pingService = pingService(baseUrl + "/ok|1h," + baseUrl + "/down|1h," + baseUrl + "/slow|1h");
+
+        long start = System.currentTimeMillis();
+        pingService.pingDueTargets();
+        // The tick only dispatches; the slow target does not hold it up
+        assertTrue(System.currentTimeMillis() - start < 1000);
+
+        assertTrue(eventually(() -> pingService.getStatus().getTotalPings() == 3
+            && pingService.getStatus().getTargets().stream().allMatch(t -> t.getTotalPings() == 1)));
+
+        List<PingService.TargetStatus> targets = pingService.getStatus().getTargets();
+        PingService.TargetStatus ok = targets.get(0);
+        assertEquals(0, ok.getFailures());
+        assertTrue(ok.getLastResult().startsWith("SUCCESS"));
+        assertEquals(1, ok.getLatency().getCount());
+        assertTrue(ok.getLatency().getMaxMillis() > 0);
+        assertTrue(ok.getLatency().getP99Millis() >= ok.getLatency().getP50Millis());
+
+        PingService.TargetStatus down = targets.get(1);
+        assertEquals(1, down.getFailures());
+        assertTrue(down.getLastResult().contains("HTTP 503"));
+
+        PingService.TargetStatus slow = targets.get(2);
+        assertEquals(1, slow.getFailures());
+        assertTrue(slow.getLastResult().startsWith("FAILED"));
+    }
+
+    @Test
+    void testTargetIsNotPingedBeforeItsInterval() throws Exception {
+        PingService pingService = pingService(baseUrl + "/ok|1h");
+
+        pingService.pingDueTargets();
+        assertTrue(eventually(() -> pingService.getStatus().getTargets().get(0).getTotalPings() == 1));
+        pingService.pingDueTargets();
+        Thread.sleep(100);
+
+        assertEquals(1, pingService.getStatus().getTotalPings());
+    }
+
+    @Test
+    void testDisabledServiceDoesNothing() {
+        PingService pingService = pingService(baseUrl + "/ok");
+        ReflectionTestUtils.setField(pingService, "pingEnabled", false);
+
+        pingService.pingDueTargets();
+
+        assertEquals(0, pingService.getStatus().getTotalPings());
+        assertEquals("Never", pingService.getStatus().getLastPingTime());
+    }
+
+    @Test
+    void testFailingTargetBacksOffAndRecordsHistory() throws Exception {
+        PingService pingService = pingService(baseUrl + "/down|1s");
+
+        pingService.pingDueTargets();
+        assertTrue(eventually(() -> pingService.getStatus().getTotalPings() == 1));
+
+        PingService.TargetStatus status = pingService.getStatus().getTargets().get(0);
+        assertEquals("CLOSED", status.getCircuit());
+        assertEquals(1, status.getConsecutiveFailures());
+        assertEquals(1, status.getHistory().size());
+        assertFalse(status.getHistory().get(0).isSuccess());
+        assertTrue(status.getHistory().get(0).getLatencyMillis() > 0);
+    }
+
+    @Test
+    void testCircuitOpensAfterConsecutiveFailuresAndHalfOpens() {
+        PingTarget target = target(Duration.ofSeconds(1), 3, Duration.ofMinutes(1));
+        long now = 1_000_000;
+        for (int i = 0; i < 3; i++) {
+            // Each probe starts once the previous backoff has passed
+            now += Duration.ofMinutes(1).toMillis();
+            assertTrue(target.tryStart(now));
+            target.complete(now, false, -1, "FAILED");
+        }
+        assertEquals("OPEN", target.status().getCircuit());
+        assertEquals(3, target.status().getConsecutiveFailures());
+
+        // Skipped while open, then one half-open probe
+        assertFalse(target.tryStart(now + 30_000));
+        assertTrue(target.tryStart(now + 60_000));
+        assertEquals("HALF_OPEN", target.status().getCircuit());
+        assertFalse(target.tryStart(now + 60_000));
+        target.complete(now + 60_000, false, -1, "FAILED");
+        assertEquals("OPEN", target.status().getCircuit());
+
+        assertTrue(target.tryStart(now + 120_000));
+        target.complete(now + 120_000, true, 5_000_000, "SUCCESS");
+        assertEquals("CLOSED", target.status().getCircuit());
+        assertEquals(0, target.status().getConsecutiveFailures());
+    }
+
+    @Test
+    void testBackoffDoublesUpToTheCapWithJitter() {
+        PingTarget target = target(Duration.ofSeconds(10), 100, Duration.ofMinutes(5));
+
+        assertEquals(20_000, target.backoffMillis(1, 0));
+        assertEquals(40_000, target.backoffMillis(2, 0));
+        assertEquals(60_000, target.backoffMillis(10, 0));
+        assertEquals(60_000, target.backoffMillis(1000, 0));
+        assertEquals(48_000, target.backoffMillis(10, 1));
+    }
+
+    @Test
+    void testHistoryKeepsTheLatestResults() throws Exception {
+        PingHistory history = new PingHistory(4);
+        for (int i = 0; i < 10; i++) {
+            history.add(new PingService.PingResult(i, i, true, "r" + i));
+        }
+        List<PingService.PingResult> results = history.snapshot();
+        assertEquals(4, results.size());
+        assertEquals("r9", results.get(0).getResult());
+        assertEquals("r6", results.get(3).getResult());
+
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 1000; i++) {
+            int n = i;
+            writers.execute(() -> history.add(new PingService.PingResult(n, n, true, "c" + n)));
+        }
+        writers.shutdown();
+        assertTrue(writers.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(4, history.snapshot().size());
+    }
+
+    @Test
+    void testParseTargets() {
+        List<PingService.TargetSpec> specs = PingService.parseTargets(
+            "https://a.example.com/health|30s, https://b.example.com|2m,https://c.example.com,"
+                + "https://d.example.com|PT1M30S,https://e.example.com|45", Duration.ofMinutes(5));
+
+        assertEquals(5, specs.size());
+        assertEquals(Duration.ofSeconds(30), specs.get(0).interval);
+        assertEquals(Duration.ofMinutes(2), specs.get(1).interval);
+        assertEquals(Duration.ofMinutes(5), specs.get(2).interval);
+        assertEquals(Duration.ofSeconds(90), specs.get(3).interval);
+        assertEquals(Duration.ofSeconds(45), specs.get(4).interval);
+        assertTrue(PingService.parseTargets("", Duration.ofMinutes(5)).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> PingService.parseTargets("ftp://x", Duration.ofMinutes(5)));
+        assertThrows(IllegalArgumentException.class, () -> PingService.parseTargets("http://x|soon", Duration.ofMinutes(5)));
+    }
+
+    private static PingService pingService(String targets) {
+        PingService pingService = new PingService();
+        ReflectionTestUtils.setField(pingService, "pingUrl", "");
+        ReflectionTestUtils.setField(pingService, "pingInterval", 5);
+        ReflectionTestUtils.setField(pingService, "pingEnabled", true);
+        ReflectionTestUtils.setField(pingService, "pingTargets", targets);
+        ReflectionTestUtils.setField(pingService, "connectTimeout", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(pingService, "readTimeout", Duration.ofMillis(500));
+        ReflectionTestUtils.setField(pingService, "historySize", 20);
+        ReflectionTestUtils.setField(pingService, "maxBackoff", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(pingService, "backoffJitter", 0.2);
+        ReflectionTestUtils.setField(pingService, "failureThreshold", 5);
+        ReflectionTestUtils.setField(pingService, "openDuration", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(pingService, "meterRegistry", new SimpleMeterRegistry());
+        pingService.init();
+        return pingService;
+    }
+
+    private static PingTarget target(Duration interval, int failureThreshold, Duration openDuration) {
+        PingTarget.Settings settings = new PingTarget.Settings(8, Duration.ofMinutes(1), 0.2,
+            failureThreshold, openDuration);
+        return new PingTarget("http://localhost/", interval,
+            new SimpleMeterRegistry().timer("ping.latency"), settings);
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.hello_spring.filters;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for DbConcurrencyLimitFilter: requests over the cap are rejected with 503
+ */
+class DbConcurrencyLimitFilterTest {
+
+    @Test
+    void testRequestsOverTheLimitAreRejected() throws Exception {
+        DbConcurrencyLimitFilter filter = new DbConcurrencyLimitFilter(1, Duration.ofMillis(50));
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        HttpServlet slow = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                entered.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> first = executor.submit(() -> {
+                filter.doFilter(new MockHttpServletRequest("GET", "/users"), new MockHttpServletResponse(),
+                    new MockFilterChain(slow));
+                return null;
+            });
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            assertEquals(1, filter.getInFlight());
+
+            MockHttpServletResponse rejected = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/users"), rejected, new MockFilterChain());
+            assertEquals(503, rejected.getStatus());
+            assertEquals("1", rejected.getHeader("Retry-After"));
+            assertEquals(1, filter.getRejected());
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        MockHttpServletResponse accepted = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/users"), accepted, new MockFilterChain());
+        assertEquals(200, accepted.getStatus());
+        assertEquals(0, filter.getInFlight());
+    }
+
+    @Test
+    void testLimitIsDerivedFromPoolSize() {
+        assertEquals(40, DbConcurrencyLimitFilter.limitFor(10, 4));
+        assertEquals(10, DbConcurrencyLimitFilter.limitFor(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new DbConcurrencyLimitFilter(0, Duration.ofSeconds(1)));
+    }
+}
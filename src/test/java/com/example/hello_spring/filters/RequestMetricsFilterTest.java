@@ -0,0 +1,94 @@
+package com.example.hello_spring.filters;
+
+import com.example.hello_spring.services.RequestMetrics;
+import com.example.hello_spring.services.RequestTimings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for RequestMetricsFilter and RequestTimings: per-route recording, response size and phase breakdown
+ */
+class RequestMetricsFilterTest {
+
+    @Test
+    void testRecordsLatencySizeAndPhasesPerRoute() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RequestMetrics metrics = new RequestMetrics(registry);
+        RequestMetricsFilter filter = new RequestMetricsFilter(metrics);
+        HttpServlet handler = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/users/search");
+                // A cache load with a nested database query: each phase gets its exclusive time
+                RequestTimings.time(RequestTimings.Phase.CACHE, () -> {
+                    sleep(10);
+                    RequestTimings.time(RequestTimings.Phase.DB, () -> sleep(20));
+                    RequestTimings.countStatement();
+                    return null;
+                });
+                resp.getOutputStream().write("{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+            }
+        };
+
+        for (String username : new String[] {"a", "b"}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/search");
+            request.setParameter("username", username);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain(handler));
+            assertEquals("{\"id\":1}", response.getContentAsString());
+        }
+        filter.doFilter(new MockHttpServletRequest("GET", "/nowhere"), new MockHttpServletResponse(),
+            new MockFilterChain());
+
+        RequestMetrics.Report report = metrics.report();
+        assertEquals(0, report.getInFlight());
+        assertEquals(2, report.getRoutes().size());
+        RequestMetrics.RouteStats search = report.getRoutes().stream()
+            .filter(r -> r.getRoute().equals("/users/search")).findFirst().orElseThrow();
+        assertEquals("GET", search.getMethod());
+        assertEquals(2, search.getCount());
+        assertEquals(8.0, search.getMeanResponseBytes());
+        assertEquals(1.0, search.getMeanDbStatements());
+        assertTrue(search.getMeanDbMillis() >= 20);
+        assertTrue(search.getMeanCacheMillis() >= 10);
+        // The nested query is not charged to the cache as well
+        assertTrue(search.getMeanCacheMillis() + search.getMeanDbMillis() <= search.getMeanMillis());
+        assertTrue(search.getP99Millis() >= 30);
+        assertNotNull(registry.find("app.request.latency").tag("route", "/users/search").timer());
+        assertNotNull(registry.find("app.request.latency").tag("route", "UNMAPPED").timer());
+    }
+
+    @Test
+    void testTimingsAreIgnoredOutsideARequest() {
+        assertEquals("ok", RequestTimings.time(RequestTimings.Phase.CACHE, () -> "ok"));
+        RequestTimings.record(RequestTimings.Phase.DB, 1_000);
+        RequestTimings.countStatement();
+
+        RequestTimings timings = RequestTimings.begin();
+        RequestTimings.end();
+        RequestTimings.record(RequestTimings.Phase.DB, 1_000);
+        assertEquals(0, timings.getNanos(RequestTimings.Phase.DB));
+    }
+
+    private static Object sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
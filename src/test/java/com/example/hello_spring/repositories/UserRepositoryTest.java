@@ -1,11 +1,18 @@
 package com.example.hello_spring.repositories;
 
 import com.example.hello_spring.entities.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -19,6 +26,9 @@ class UserRepositoryTest {
     
     @Autowired
     private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
     
     @Test
     void testSaveAndFindUser() {
@@ -74,4 +84,62 @@ class UserRepositoryTest {
         assertTrue(foundUser.isPresent());
         assertEquals("alice", foundUser.get().getUsername());
     }
-}
\ No newline at end of file
+    
+    @Test
+    void testFindFirstByEmailWithDuplicates() {
+        // users.email is not unique
+        User first = userRepository.save(new User("carol", "shared@example.com"));
+        userRepository.save(new User("dave", "shared@example.com"));
+        
+        Optional<User> foundUser = userRepository.findFirstByEmailOrderByIdAsc("shared@example.com");
+        
+        assertTrue(foundUser.isPresent());
+        assertEquals(first.getId(), foundUser.get().getId());
+    }
+    
+    @Test
+    void testKeysetPagination() {
+        // Create and save a few users
+        for (int i = 0; i < 5; i++) {
+            userRepository.save(new User("page" + i, "page" + i + "@example.com"));
+        }
+        
+        // First page starts after id 0
+        List<User> firstPage = userRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3));
+        assertEquals(3, firstPage.size());
+        assertEquals("page0", firstPage.get(0).getUsername());
+        
+        // Next page continues after the last id seen
+        Long lastId = firstPage.get(2).getId();
+        List<User> secondPage = userRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(3));
+        assertEquals(2, secondPage.size());
+        assertEquals("page3", secondPage.get(0).getUsername());
+        assertTrue(secondPage.get(0).getId() > lastId);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testFindByUsernameIsServedFromSecondLevelCache() {
+        // Cached query results only count once the insert is committed
+        User user = userRepository.save(new User("cached", "cached@example.com"));
+        try {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+
+            // Each call runs in its own persistence context; the second is answered by the caches
+            userRepository.findByUsername("cached");
+            userRepository.findByUsername("cached");
+
+            assertEquals(1, statistics.getQueryCacheMissCount());
+            assertEquals(1, statistics.getQueryCacheHitCount());
+            assertEquals(1, statistics.getPrepareStatementCount());
+
+            // Lookups by id go through the entity region, which the insert already populated
+            userRepository.findById(user.getId());
+            assertEquals(1, statistics.getDomainDataRegionStatistics(User.class.getName()).getHitCount());
+            assertEquals(1, statistics.getPrepareStatementCount());
+        } finally {
+            userRepository.delete(user);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.hello_spring.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for CacheInvalidationBus: two CacheService nodes connected over loopback and UDP
+ */
+class CacheInvalidationBusTest {
+
+    private final List<CacheInvalidationBus> buses = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        buses.forEach(CacheInvalidationBus::close);
+    }
+
+    @Test
+    void testPutAndDeleteInvalidatePeer() throws Exception {
+        LoopbackInvalidationTransport.Hub hub = new LoopbackInvalidationTransport.Hub();
+        CacheService nodeA = node(new LoopbackInvalidationTransport(hub), Duration.ofHours(1));
+        CacheService nodeB = node(new LoopbackInvalidationTransport(hub), Duration.ofHours(1));
+
+        nodeB.put("shared", "stale");
+        flushAll();
+        nodeA.put("shared", "fresh");
+        flushAll();
+        assertNull(nodeB.get("shared"));
+        assertEquals("fresh", nodeA.get("shared"));
+
+        nodeB.put("other", "value");
+        flushAll();
+        assertEquals("value", nodeB.get("other"));
+        assertNull(nodeA.get("other"));
+
+        nodeA.put("other", "value");
+        nodeA.delete("other");
+        flushAll();
+        assertNull(nodeA.get("other"));
+    }
+
+    @Test
+    void testClearIsBroadcast() throws Exception {
+        LoopbackInvalidationTransport.Hub hub = new LoopbackInvalidationTransport.Hub();
+        CacheService nodeA = node(new LoopbackInvalidationTransport(hub), Duration.ofHours(1));
+        CacheService nodeB = node(new LoopbackInvalidationTransport(hub), Duration.ofHours(1));
+
+        nodeB.put("k1", "v1");
+        nodeB.put("k2", "v2");
+        flushAll();
+        nodeA.clear();
+        flushAll();
+
+        assertEquals(0, nodeB.size());
+    }
+
+    @Test
+    void testRemoteInvalidationsAreNotRebroadcast() throws Exception {
+        LoopbackInvalidationTransport.Hub hub = new LoopbackInvalidationTransport.Hub();
+        CacheService nodeA = node(new LoopbackInvalidationTransport(hub), Duration.ofHours(1));
+        node(new LoopbackInvalidationTransport(hub), Duration.ofHours(1));
+
+        nodeA.put("key", "value");
+        flushAll();
+        flushAll();
+
+        assertEquals(1, buses.get(0).stats().getMessagesSent());
+        assertEquals(0, buses.get(1).stats().getMessagesSent());
+        assertEquals(0, buses.get(0).stats().getMessagesReceived());
+    }
+
+    @Test
+    void testBurstIsCoalescedIntoOneMessage() throws Exception {
+        LoopbackInvalidationTransport.Hub hub = new LoopbackInvalidationTransport.Hub();
+        CacheService nodeA = node(new LoopbackInvalidationTransport(hub), Duration.ofHours(1));
+        node(new LoopbackInvalidationTransport(hub), Duration.ofHours(1));
+
+        for (int i = 0; i < 100; i++) {
+            nodeA.put("hot" + (i % 5), i);
+        }
+        flushAll();
+
+        CacheInvalidationBus.Stats stats = buses.get(0).stats();
+        assertEquals(100, stats.getPublished());
+        assertEquals(1, stats.getMessagesSent());
+        assertEquals(5, stats.getKeysSent());
+        assertEquals(5, buses.get(1).stats().getKeysReceived());
+    }
+
+    @Test
+    void testUdpTransportOnLocalhost() throws Exception {
+        InetAddress localhost = InetAddress.getLoopbackAddress();
+        int portA = freePort();
+        int portB = freePort();
+        CacheService nodeA = node(new UdpInvalidationTransport(new InetSocketAddress(localhost, portA),
+            List.of(new InetSocketAddress(localhost, portB))), Duration.ofMillis(10));
+        CacheService nodeB = node(new UdpInvalidationTransport(new InetSocketAddress(localhost, portB),
+            List.of(new InetSocketAddress(localhost, portA))), Duration.ofMillis(10));
+
+        nodeB.put("udp-key", "stale");
+        assertTrue(eventually(() -> buses.get(0).stats().getMessagesReceived() == 1));
+        nodeA.put("udp-key", "fresh");
+
+        assertTrue(eventually(() -> nodeB.get("udp-key") == null));
+        assertEquals("fresh", nodeA.get("udp-key"));
+    }
+
+    @Test
+    void testFailedSendIsRetriedWithTheNextFlush() throws Exception {
+        LoopbackInvalidationTransport.Hub hub = new LoopbackInvalidationTransport.Hub();
+        AtomicInteger failures = new AtomicInteger(1);
+        CacheService nodeA = node(new LoopbackInvalidationTransport(hub) {
+            @Override
+            public void send(byte[] message) {
+                if (failures.getAndDecrement() > 0) {
+                    throw new IllegalStateException("network down");
+                }
+                super.send(message);
+            }
+        }, Duration.ofHours(1));
+        CacheService nodeB = node(new LoopbackInvalidationTransport(hub), Duration.ofHours(1));
+
+        nodeB.put("retried", "stale");
+        buses.get(1).flush();
+        nodeA.put("retried", "fresh");
+        buses.get(0).flush();
+        assertEquals("stale", nodeB.get("retried"));
+        assertEquals(1, buses.get(0).stats().getSendFailures());
+        assertEquals(1, buses.get(0).stats().getPending());
+
+        buses.get(0).flush();
+        assertNull(nodeB.get("retried"));
+    }
+
+    @Test
+    void testRemoteAddressesNeedOptIn() {
+        InetSocketAddress local = new InetSocketAddress("127.0.0.1", 47800);
+        InetSocketAddress remote = new InetSocketAddress("10.0.0.5", 47800);
+        UdpInvalidationTransport.checkAddresses(local, List.of(new InetSocketAddress("localhost", 47801)), false);
+        assertThrows(IllegalArgumentException.class,
+            () -> UdpInvalidationTransport.checkAddresses(new InetSocketAddress("0.0.0.0", 47800), List.of(), false));
+        assertThrows(IllegalArgumentException.class,
+            () -> UdpInvalidationTransport.checkAddresses(local, List.of(remote), false));
+        UdpInvalidationTransport.checkAddresses(new InetSocketAddress("0.0.0.0", 47800), List.of(remote), true);
+    }
+
+    @Test
+    void testParsePeers() {
+        List<InetSocketAddress> peers = UdpInvalidationTransport.parsePeers("127.0.0.1:47801, localhost:47802");
+        assertEquals(2, peers.size());
+        assertEquals(47802, peers.get(1).getPort());
+        assertTrue(UdpInvalidationTransport.parsePeers("").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> UdpInvalidationTransport.parsePeers("no-port"));
+    }
+
+    private CacheService node(CacheInvalidationTransport transport, Duration flushInterval) throws IOException {
+        CacheInvalidationBus bus = new CacheInvalidationBus(transport, flushInterval, 512);
+        bus.start();
+        buses.add(bus);
+        CacheService cacheService = new CacheService();
+        cacheService.setInvalidationBus(bus);
+        return cacheService;
+    }
+
+    private void flushAll() {
+        buses.forEach(CacheInvalidationBus::flush);
+    }
+
+    private static int freePort() throws IOException {
+        try (DatagramSocket socket = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+}
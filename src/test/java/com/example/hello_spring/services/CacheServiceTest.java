@@ -1,9 +1,26 @@
 package com.example.hello_spring.services;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -174,6 +191,238 @@ class CacheServiceTest {
         assertNull(anotherInstance.get("singletonTest"));
     }
 
+    @Test
+    void testGetOrLoadLoadsOnlyOnMiss() {
+        AtomicInteger loads = new AtomicInteger();
+        
+        assertEquals("loaded", cacheService.getOrLoad("loadKey", k -> {
+            loads.incrementAndGet();
+            return "loaded";
+        }));
+        assertEquals("loaded", cacheService.getOrLoad("loadKey", k -> {
+            loads.incrementAndGet();
+            return "other";
+        }));
+        
+        assertEquals(1, loads.get());
+        assertEquals("loaded", cacheService.get("loadKey"));
+    }
+
+    @Test
+    void testGetOrLoadRunsLoaderOnCallingThread() {
+        Thread caller = Thread.currentThread();
+        
+        assertEquals("here", cacheService.getOrLoad("threadKey", k -> {
+            assertSame(caller, Thread.currentThread());
+            return "here";
+        }));
+        cacheService.getAll(List.of("bulkThreadKey"), missing -> {
+            assertSame(caller, Thread.currentThread());
+            return Map.of("bulkThreadKey", "here");
+        });
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+            () -> cacheService.getOrLoad("failingKey", k -> { throw new IllegalStateException("boom"); }));
+        assertEquals("boom", failure.getMessage());
+    }
+
+    @Test
+    void testGetOrLoadWithNullResultCachesNothing() {
+        assertNull(cacheService.getOrLoad("nullLoad", k -> null));
+        assertNull(cacheService.get("nullLoad"));
+    }
+
+    @Test
+    void testGetOrLoadCollapsesConcurrentMisses() throws Exception {
+        // Many threads miss on the same key at once; only one of them should run the loader
+        int threads = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cacheService.getOrLoad("stampede", k -> {
+                        loads.incrementAndGet();
+                        sleep(100);
+                        return "value";
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<Object> result : results) {
+                assertEquals("value", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testGetOrLoadDoesNotHoldTheEntryWhileLoading() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> load = CompletableFuture.supplyAsync(() ->
+            cacheService.getOrLoad("slowKey", k -> {
+                loading.countDown();
+                await(release);
+                return "loaded";
+            }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        
+        // A write to the key being loaded neither waits for the load nor is overwritten by it
+        CompletableFuture.runAsync(() -> cacheService.put("slowKey", "written")).get(1, TimeUnit.SECONDS);
+        release.countDown();
+        
+        assertEquals("loaded", load.get(5, TimeUnit.SECONDS));
+        assertEquals("written", cacheService.get("slowKey"));
+    }
+
+    @Test
+    void testGetOrLoadAsyncSharesPendingLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        
+        CompletableFuture<Object> first = cacheService.getOrLoadAsync("asyncKey", k -> {
+            loads.incrementAndGet();
+            await(release);
+            return "async";
+        });
+        CompletableFuture<Object> second = cacheService.getOrLoadAsync("asyncKey", k -> {
+            loads.incrementAndGet();
+            return "other";
+        });
+        release.countDown();
+        
+        assertEquals("async", first.get(5, TimeUnit.SECONDS));
+        assertEquals("async", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testGetAllLoadsMissingKeysInOneCall() {
+        cacheService.put("a", "cached-a");
+        AtomicInteger calls = new AtomicInteger();
+        
+        Map<String, Object> values = cacheService.getAll(List.of("a", "b", "c"), missing -> {
+            calls.incrementAndGet();
+            assertEquals(Set.of("b", "c"), missing);
+            Map<String, Object> loaded = new HashMap<>();
+            for (String key : missing) {
+                loaded.put(key, "loaded-" + key);
+            }
+            return loaded;
+        });
+        
+        assertEquals(1, calls.get());
+        assertEquals("cached-a", values.get("a"));
+        assertEquals("loaded-b", values.get("b"));
+        assertEquals("loaded-c", cacheService.get("c"));
+    }
+
+    @Test
+    void testPutAll() {
+        cacheService.putAll(Map.of("k1", "v1", "k2", 2));
+        
+        assertEquals("v1", cacheService.get("k1"));
+        assertEquals(2, cacheService.get("k2"));
+        assertEquals(2, cacheService.size());
+    }
+
+    @Test
+    void testLoaderArgumentsAreValidated() {
+        assertThrows(IllegalArgumentException.class, () -> cacheService.getOrLoad(null, k -> "v"));
+        assertThrows(IllegalArgumentException.class, () -> cacheService.getOrLoad("k", null));
+        assertThrows(IllegalArgumentException.class, () -> cacheService.getOrLoadAsync(null, k -> "v"));
+        assertThrows(IllegalArgumentException.class, () -> cacheService.putAll(null));
+    }
+
+    @Test
+    void testStatsRecordHitsMissesAndLoads() {
+        cacheService.put("statsKey", "value");
+        cacheService.get("statsKey");
+        cacheService.get("missingKey");
+        cacheService.getOrLoad("loadedKey", k -> "loaded");
+        
+        // The async cache records a load once its future completes, which can trail the call
+        long deadline = System.currentTimeMillis() + 1000;
+        while (cacheService.stats().loadSuccessCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        CacheStats stats = cacheService.stats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(2, stats.missCount());
+        assertEquals(1, stats.loadSuccessCount());
+        assertTrue(stats.totalLoadTime() > 0);
+    }
+
+    @Test
+    void testMetricsAreRegistered() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cacheService.bindTo(registry);
+        
+        cacheService.put("metricsKey", "value");
+        cacheService.get("metricsKey");
+        cacheService.get("missingKey");
+        
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", CacheService.CACHE_NAME)
+            .tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", CacheService.CACHE_NAME)
+            .tag("result", "miss").functionCounter().count());
+        assertNotNull(registry.find("cache.evictions").tag("cache", CacheService.CACHE_NAME).meter());
+    }
+
+    @Test
+    void testByteBudgetEvictsByWeight() {
+        // 64 KB budget: a handful of 16 KB payloads fit, many don't
+        CacheService weighted = new CacheService(1000, DataSize.ofKilobytes(64), 0,
+            Duration.ofMinutes(10), Duration.ZERO, 16);
+        assertEquals(64 * 1024, weighted.maximumWeight());
+        
+        for (int i = 0; i < 20; i++) {
+            weighted.put("blob" + i, new byte[16 * 1024]);
+        }
+        weighted.cleanUp();
+        
+        assertTrue(weighted.size() < 20);
+        assertTrue(weighted.weightedSize() <= 64 * 1024);
+        assertTrue(weighted.stats().evictionWeight() > 0);
+    }
+
+    @Test
+    void testEntryCountModeHasNoWeight() {
+        assertEquals(0, cacheService.maximumWeight());
+        assertEquals(-1, cacheService.weightedSize());
+    }
+
+    @Test
+    void testValueWeigherScalesWithPayload() {
+        long small = CacheValueWeigher.estimate("x");
+        long large = CacheValueWeigher.estimate("x".repeat(10_000));
+        assertTrue(large - small >= 9_000);
+        
+        assertTrue(CacheValueWeigher.estimate(new TestObject("name", 1)) > CacheValueWeigher.estimate(1));
+        assertTrue(CacheValueWeigher.estimate(List.of("a", "b", "c")) > CacheValueWeigher.estimate(List.of()));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * Helper class for testing custom objects in cache
      */
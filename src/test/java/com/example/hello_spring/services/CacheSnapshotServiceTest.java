@@ -0,0 +1,136 @@
+package com.example.hello_spring.services;
+
+import com.example.hello_spring.entities.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests for CacheSnapshotService: save, warm restart and expiry of snapshot entries
+ */
+class CacheSnapshotServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSnapshotRoundTrip() throws Exception {
+        Path file = tempDir.resolve("cache.snapshot");
+        CacheService before = new CacheService();
+        before.put("string", "value");
+        before.put("list", List.of(1, 2, 3));
+        before.put("bytes", new byte[200_000]);
+        before.put("object", new Object());
+
+        assertEquals(3, new CacheSnapshotService(before, file).save());
+        assertFalse(Files.exists(tempDir.resolve("cache.snapshot.tmp")));
+
+        CacheService after = new CacheService();
+        assertEquals(3, new CacheSnapshotService(after, file).load());
+        assertEquals("value", after.get("string"));
+        assertEquals(List.of(1, 2, 3), after.get("list"));
+        assertEquals(200_000, ((byte[]) after.get("bytes")).length);
+        assertNull(after.get("object"));
+    }
+
+    @Test
+    void testRemainingTtlIsKept() throws Exception {
+        Path file = tempDir.resolve("cache.snapshot");
+        CacheService before = cache(Duration.ofMinutes(10));
+        before.restore("short", "value", Duration.ofSeconds(30));
+        new CacheSnapshotService(before, file).save();
+
+        CacheService after = cache(Duration.ofMinutes(10));
+        new CacheSnapshotService(after, file).load();
+
+        Duration[] remaining = new Duration[1];
+        after.forEachEntry((key, value, ttl) -> remaining[0] = ttl);
+        assertNotNull(remaining[0]);
+        assertTrue(remaining[0].compareTo(Duration.ofSeconds(30)) <= 0);
+    }
+
+    @Test
+    void testExpiredEntriesAreSkipped() throws Exception {
+        Path file = tempDir.resolve("cache.snapshot");
+        CacheService before = cache(Duration.ofMinutes(10));
+        before.restore("expiring", "value", Duration.ofMillis(50));
+        before.put("fresh", "value");
+        new CacheSnapshotService(before, file).save();
+        Thread.sleep(100);
+
+        CacheService after = cache(Duration.ofMinutes(10));
+        assertEquals(1, new CacheSnapshotService(after, file).load());
+        assertNull(after.get("expiring"));
+        assertEquals("value", after.get("fresh"));
+    }
+
+    @Test
+    void testMissingOrCorruptSnapshotStartsCold() throws Exception {
+        Path file = tempDir.resolve("cache.snapshot");
+        CacheService cacheService = new CacheService();
+        CacheSnapshotService snapshot = new CacheSnapshotService(cacheService, file);
+        assertEquals(0, snapshot.load());
+
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        snapshot.restoreOnStartup();
+        assertEquals(0, cacheService.size());
+
+        // A truncated snapshot still yields the entries before the damage
+        CacheService source = new CacheService();
+        source.put("key", "value");
+        new CacheSnapshotService(source, file).save();
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+        assertEquals(1, snapshot.load());
+    }
+
+    @Test
+    void testOnlyAllowedTypesAreDeserialized() throws Exception {
+        Path file = tempDir.resolve("cache.snapshot");
+        CacheService before = new CacheService();
+        before.put("user", new User("snapshot", "snapshot@example.com"));
+        before.put("untrusted", new Untrusted());
+        assertEquals(2, new CacheSnapshotService(before, file).save());
+
+        CacheService after = new CacheService();
+        assertEquals(1, new CacheSnapshotService(after, file).load());
+        assertEquals("snapshot", ((User) after.get("user")).getUsername());
+        assertNull(after.get("untrusted"));
+    }
+
+    @Test
+    void testSnapshotWritableByOthersIsNotLoaded() throws Exception {
+        assumeTrue(Files.getFileAttributeView(tempDir, PosixFileAttributeView.class) != null);
+        Path file = tempDir.resolve("private").resolve("cache.snapshot");
+        CacheService before = new CacheService();
+        before.put("key", "value");
+        new CacheSnapshotService(before, file).save();
+        assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(file.getParent()));
+
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-rw-rw-"));
+        CacheService after = new CacheService();
+        assertThrows(IOException.class, () -> new CacheSnapshotService(after, file).load());
+        assertEquals(0, after.size());
+    }
+
+    private static CacheService cache(Duration expireAfterWrite) {
+        return new CacheService(1000, DataSize.ofBytes(0), 0, expireAfterWrite, Duration.ZERO, 16);
+    }
+
+    static class Untrusted implements Serializable {
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.hello_spring.services;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolSizingServiceTest {
+
+    private HikariDataSource dataSource;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:pool_sizing_test");
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(2);
+        dataSource.setConnectionTimeout(5000);
+        registry = new SimpleMeterRegistry();
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    private ConnectionPoolSizingService service(int minSize, int maxSize, int samplesPerDecision) throws Exception {
+        ConnectionPoolSizingService service = new ConnectionPoolSizingService(dataSource, registry, minSize, maxSize,
+            Duration.ofMillis(1), samplesPerDecision, Duration.ofSeconds(60), 10);
+        service.init();
+        return service;
+    }
+
+    private static ConnectionPoolSizingService.Window window(int active, int pending, long acquisitions,
+                                                             double meanMillis) {
+        ConnectionPoolSizingService.Window window = new ConnectionPoolSizingService.Window();
+        window.add(new ConnectionPoolSizingService.Sample("", active, 0, active, pending, acquisitions, meanMillis,
+            null, null, null, 0));
+        return window;
+    }
+
+    @Test
+    void growsWhenThreadsWaitForConnections() throws Exception {
+        ConnectionPoolSizingService service = service(1, 6, 2);
+
+        List<Connection> held = new ArrayList<>();
+        held.add(dataSource.getConnection());
+        held.add(dataSource.getConnection());
+        List<Thread> waiting = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Thread thread = new Thread(() -> {
+                try (Connection ignored = dataSource.getConnection()) {
+                    // Acquired once a held connection is returned
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            thread.start();
+            waiting.add(thread);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection() < 2
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        service.sample();
+        Thread.sleep(50);
+        for (Connection connection : held) {
+            connection.close();
+        }
+        for (Thread thread : waiting) {
+            thread.join();
+        }
+        service.sample();
+
+        ConnectionPoolSizingService.Status status = service.status();
+        assertEquals(1, status.getDecisions().size());
+        ConnectionPoolSizingService.Decision decision = status.getDecisions().get(0);
+        assertEquals("grow", decision.getAction());
+        assertEquals(2, decision.getFromSize());
+        assertEquals(2, decision.getPeakPending());
+        assertTrue(decision.getAcquireMillis() > 1);
+        assertEquals(4, status.getMaximumPoolSize());
+        assertEquals(4, dataSource.getHikariConfigMXBean().getMaximumPoolSize());
+        assertEquals(1, status.getMinimumIdle());
+    }
+
+    @Test
+    void holdsWithoutSaturationOrAtMaxSize() throws Exception {
+        ConnectionPoolSizingService service = service(1, 4, 1);
+
+        // Slow acquisitions without anyone waiting: more connections would not help
+        assertEquals("hold", service.evaluate(2, window(2, 0, 10, 50), 0).getAction());
+
+        ConnectionPoolSizingService.Decision atMax = service.evaluate(4, window(4, 3, 10, 50), 0);
+        assertEquals("hold", atMax.getAction());
+        assertEquals(4, atMax.getToSize());
+
+        // Growth is capped at max-size
+        assertEquals(4, service.evaluate(3, window(3, 8, 10, 50), 0).getToSize());
+    }
+
+    @Test
+    void shrinksIdlePoolAfterCooldown() throws Exception {
+        dataSource.setMaximumPoolSize(10);
+        ConnectionPoolSizingService service = service(2, 20, 1);
+        long now = System.currentTimeMillis();
+
+        ConnectionPoolSizingService.Decision shrink = service.evaluate(10, window(1, 0, 10, 0.1), now);
+        assertEquals("shrink", shrink.getAction());
+        // Half of the unused headroom above max(min-size, peak active + 1) goes
+        assertEquals(6, shrink.getToSize());
+        assertEquals(3, service.evaluate(4, window(2, 0, 10, 0.1), now).getToSize());
+        assertEquals("hold", service.evaluate(2, window(0, 0, 0, 0), now).getAction());
+
+        service.decide(window(10, 5, 10, 50), now);
+        assertEquals(20, service.status().getMaximumPoolSize());
+        assertEquals("hold", service.evaluate(10, window(1, 0, 10, 0.1), now + 1000).getAction());
+        assertEquals("shrink", service.evaluate(10, window(1, 0, 10, 0.1), now + 61_000).getAction());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.hello_spring.services;
+
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for JfrProfilingService and its rolling top-N tables
+ */
+class JfrProfilingServiceTest {
+
+    private static volatile long sink;
+
+    @Test
+    void testRollingTopNRanksAndExpiresKeys() {
+        RollingTopN topN = new RollingTopN(10_000, 10);
+        topN.add("a", 1, 0);
+        topN.add("b", 5, 1_000);
+        topN.add("a", 2, 2_000);
+
+        RollingTopN.Top top = topN.top(10, 2_000);
+        assertEquals(8, top.total);
+        assertEquals("b", top.entries.get(0).getKey());
+        assertEquals(3L, top.entries.get(1).getValue());
+        assertEquals(1, topN.top(1, 2_000).entries.size());
+
+        // The slot holding the first "a" has left the window
+        top = topN.top(10, 10_500);
+        assertEquals(7, top.total);
+        assertEquals(2L, top.entries.get(1).getValue());
+
+        // Reusing a slot on the next lap drops its old counts
+        topN.add("c", 4, 11_000);
+        top = topN.top(10, 11_000);
+        assertEquals(6, top.total);
+        assertEquals("c", top.entries.get(0).getKey());
+    }
+
+    @Test
+    void testReportsHotMethodsAndDumpsRecording() throws Exception {
+        JfrProfilingService service = new JfrProfilingService(Duration.ofMinutes(1), Duration.ofMillis(10),
+            Duration.ofMillis(10));
+        service.start();
+        try {
+            long deadline = System.currentTimeMillis() + 20_000;
+            JfrProfilingService.ProfileReport report = service.report(5);
+            while (report.getHotMethods().isEmpty() && System.currentTimeMillis() < deadline) {
+                burnCpu();
+                report = service.report(5);
+            }
+
+            assertFalse(report.getHotMethods().isEmpty());
+            assertTrue(report.getHotMethods().size() <= 5);
+            JfrProfilingService.TopEntry first = report.getHotMethods().get(0);
+            assertTrue(first.getValue() > 0);
+            assertTrue(first.getPercentage() > 0 && first.getPercentage() <= 100);
+            assertEquals(60, report.getWindowSeconds());
+
+            Path file = service.dump();
+            try {
+                assertTrue(Files.size(file) > 0);
+                assertFalse(RecordingFile.readAllEvents(file).isEmpty());
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } finally {
+            service.stop();
+        }
+    }
+
+    private static void burnCpu() {
+        long end = System.nanoTime() + 100_000_000L;
+        long x = 0;
+        while (System.nanoTime() < end) {
+            x += Long.numberOfTrailingZeros(x * 31 + 17);
+        }
+        sink = x;
+    }
+}
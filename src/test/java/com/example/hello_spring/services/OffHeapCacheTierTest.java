@@ -0,0 +1,118 @@
+package com.example.hello_spring.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OffHeapCacheTier to verify slab storage, eviction and expiry
+ */
+class OffHeapCacheTierTest {
+
+    private OffHeapCacheTier tier;
+
+    @BeforeEach
+    void setUp() {
+        // 4 slabs of 4 KB
+        tier = new OffHeapCacheTier(DataSize.ofKilobytes(16), DataSize.ofKilobytes(4), Duration.ofMinutes(10));
+    }
+
+    @Test
+    void testPutAndGetRoundTrip() {
+        assertTrue(tier.put("string", "value"));
+        assertTrue(tier.put("list", List.of(1, 2, 3)));
+
+        assertEquals("value", tier.get("string"));
+        assertEquals(List.of(1, 2, 3), tier.get("list"));
+        assertEquals(2, tier.stats().getEntries());
+        assertEquals(2, tier.stats().getHits());
+    }
+
+    @Test
+    void testTakeRemovesEntry() {
+        tier.put("key", "value");
+
+        assertEquals("value", tier.take("key"));
+        assertNull(tier.get("key"));
+        assertEquals(0, tier.stats().getUsedBytes());
+    }
+
+    @Test
+    void testOverwriteReplacesValue() {
+        tier.put("key", "first");
+        tier.put("key", "second");
+
+        assertEquals("second", tier.get("key"));
+        assertEquals(1, tier.stats().getEntries());
+    }
+
+    @Test
+    void testNonSerializableAndOversizedValuesAreRejected() {
+        assertFalse(tier.put("object", new Object()));
+        assertFalse(tier.put("huge", new byte[8 * 1024]));
+
+        assertNull(tier.get("object"));
+        assertEquals(2, tier.stats().getRejections());
+    }
+
+    @Test
+    void testOldestSlabIsRecycledWhenFull() {
+        // Each ~1 KB value; 4 slabs hold roughly 12-16 of them
+        for (int i = 0; i < 40; i++) {
+            assertTrue(tier.put("key" + i, new byte[1000]));
+        }
+
+        assertNull(tier.get("key0"));
+        assertNotNull(tier.get("key39"));
+        assertTrue(tier.stats().getEvictions() > 0);
+        assertTrue(tier.stats().getUsedBytes() <= tier.stats().getCapacityBytes());
+    }
+
+    @Test
+    void testExpiredEntriesAreNotReturned() {
+        OffHeapCacheTier expiring = new OffHeapCacheTier(DataSize.ofKilobytes(16), DataSize.ofKilobytes(4), Duration.ZERO);
+        expiring.put("key", "value");
+
+        assertNull(expiring.get("key"));
+    }
+
+    @Test
+    void testClear() {
+        tier.put("a", "1");
+        tier.put("b", "2");
+        tier.clear();
+
+        assertNull(tier.get("a"));
+        assertEquals(0, tier.stats().getEntries());
+    }
+
+    @Test
+    void testCacheServiceDemotesAndPromotes() {
+        // On-heap tier of 2 entries in front of the off-heap tier
+        CacheService cacheService = new CacheService(2, DataSize.ofBytes(0), 0,
+            Duration.ofMinutes(10), Duration.ZERO, 16, tier);
+        for (int i = 0; i < 10; i++) {
+            cacheService.put("key" + i, "value" + i);
+        }
+        cacheService.cleanUp();
+
+        assertTrue(cacheService.size() <= 2);
+        assertTrue(tier.stats().getEntries() >= 8);
+
+        // Every value is still reachable; cold ones come back from off-heap
+        for (int i = 0; i < 10; i++) {
+            assertEquals("value" + i, cacheService.get("key" + i));
+            cacheService.cleanUp();
+        }
+        assertTrue(tier.stats().getHits() >= 8);
+
+        cacheService.delete("key0");
+        assertNull(cacheService.get("key0"));
+        assertEquals("value5", cacheService.getOrLoad("key5", k -> "reloaded"));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.hello_spring.services;
+
+import com.example.hello_spring.DeferredBeanInitializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.StartupStep;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StartupReportServiceTest {
+
+    @Test
+    void selfTimeExcludesDependencies() throws Exception {
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(100);
+        StartupStep controller = startup.start("spring.beans.instantiate").tag("beanName", "controller");
+        Thread.sleep(20);
+        StartupStep repository = startup.start("spring.beans.instantiate").tag("beanName", "repository");
+        Thread.sleep(50);
+        repository.end();
+        controller.end();
+        startup.start("spring.context.refresh").end();
+
+        List<StartupReportService.BeanTiming> timings = StartupReportService.beanTimings(startup.getBufferedTimeline());
+
+        assertEquals(2, timings.size());
+        StartupReportService.BeanTiming slowest = timings.get(0);
+        StartupReportService.BeanTiming dependent = timings.get(1);
+        assertEquals("repository", slowest.getName());
+        assertEquals("controller", dependent.getName());
+        assertTrue(dependent.getTotalMillis() >= 70);
+        assertTrue(dependent.getSelfMillis() >= 20 && dependent.getSelfMillis() < slowest.getSelfMillis());
+        assertEquals(slowest.getTotalMillis(), slowest.getSelfMillis(), 0.001);
+    }
+
+    @Test
+    void reportDrainsTheStartupBuffer() {
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(100);
+        startup.start("spring.beans.instantiate").tag("beanName", "controller").end();
+        ConfigurableApplicationContext context = mock(ConfigurableApplicationContext.class);
+        when(context.getApplicationStartup()).thenReturn(startup);
+        StartupReportService service = new StartupReportService(new DeferredBeanInitializer());
+
+        service.applicationReady(new ApplicationReadyEvent(new SpringApplication(), new String[0], context,
+            Duration.ofMillis(500)));
+        startup.start("spring.beans.instantiate").tag("beanName", "lazy").end();
+
+        assertEquals(1, service.report(10).orElseThrow().getBeansInstantiated());
+        assertTrue(startup.getBufferedTimeline().getEvents().isEmpty());
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.hello_spring.services;
+
+import com.example.hello_spring.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UserAvailabilityService to verify that only possible positives reach the database
+ */
+class UserAvailabilityServiceTest {
+
+    private UserRepository userRepository;
+    private UserAvailabilityService availabilityService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.streamUsernamesAndEmails()).thenReturn(Stream.<Object[]>of(
+            new Object[] {"alice", "alice@example.com"},
+            new Object[] {"bob", "bob@example.com"}));
+        availabilityService = new UserAvailabilityService(userRepository, mock(PlatformTransactionManager.class), 1000, 0.01);
+        availabilityService.build();
+    }
+
+    @Test
+    void testFreeNamesAreAnsweredWithoutDatabase() {
+        when(userRepository.findExistingUsernames(any())).thenReturn(List.of("alice"));
+
+        assertTrue(availabilityService.isUsernameAvailable("carol"));
+        assertFalse(availabilityService.isUsernameAvailable("alice"));
+
+        verify(userRepository, times(1)).findExistingUsernames(List.of("alice"));
+        assertEquals(1, availabilityService.stats().getDefinitelyAbsent());
+        assertEquals(1, availabilityService.stats().getDatabaseQueries());
+    }
+
+    @Test
+    void testBatchSendsPossiblePositivesInOneQuery() {
+        availabilityService.userSaved("dave", "dave@example.com");
+        when(userRepository.findExistingUsernames(any())).thenReturn(List.of("alice"));
+        when(userRepository.findExistingEmails(any())).thenReturn(List.of());
+
+        UserAvailabilityService.Result result = availabilityService.check(
+            List.of("alice", "dave", "erin", "alice"), List.of("bob@example.com", "frank@example.com"));
+
+        assertEquals(Map.of("alice", false, "dave", true, "erin", true), result.getUsernames());
+        assertEquals(Map.of("bob@example.com", true, "frank@example.com", true), result.getEmails());
+        verify(userRepository).findExistingUsernames(List.of("alice", "dave"));
+        verify(userRepository).findExistingEmails(List.of("bob@example.com"));
+        // dave and bob@example.com are in the filter but free according to the database
+        assertEquals(2, availabilityService.stats().getFalsePositives());
+    }
+
+    @Test
+    void testBloomFilterHasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        List<String> added = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            added.add("user" + i);
+            filter.put("user" + i);
+        }
+        for (String value : added) {
+            assertTrue(filter.mightContain(value));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void testNamesSavedOnAPeerAreNotReportedFree() throws Exception {
+        LoopbackInvalidationTransport.Hub hub = new LoopbackInvalidationTransport.Hub();
+        try (CacheInvalidationBus busA = bus(hub); CacheInvalidationBus busB = bus(hub)) {
+            busA.start();
+            busB.start();
+            UserAvailabilityService peer = new UserAvailabilityService(userRepository,
+                mock(PlatformTransactionManager.class), 1000, 0.01);
+            peer.setInvalidationBus(busA);
+            availabilityService.setInvalidationBus(busB);
+            when(userRepository.findExistingUsernames(any())).thenReturn(List.of("grace"));
+            when(userRepository.findExistingEmails(any())).thenReturn(List.of("grace@example.com"));
+
+            peer.userSaved("grace", "grace@example.com");
+            busA.flush();
+
+            assertFalse(availabilityService.isUsernameAvailable("grace"));
+            assertFalse(availabilityService.isEmailAvailable("grace@example.com"));
+            verify(userRepository).findExistingUsernames(List.of("grace"));
+            assertEquals(0, availabilityService.stats().getDefinitelyAbsent());
+            // Names received from a peer are not sent back
+            busB.flush();
+            assertEquals(0, busB.stats().getMessagesSent());
+        }
+    }
+
+    @Test
+    void testRebuildPicksUpMissedNamesAndDropsDeletedOnes() {
+        // heidi was written on a peer whose datagram was lost; bob has been deleted
+        when(userRepository.streamUsernamesAndEmails()).thenReturn(Stream.<Object[]>of(
+            new Object[] {"alice", "alice@example.com"},
+            new Object[] {"heidi", "heidi@example.com"}));
+        when(userRepository.findExistingUsernames(any())).thenReturn(List.of("heidi"));
+
+        availabilityService.rebuild();
+
+        assertFalse(availabilityService.isUsernameAvailable("heidi"));
+        assertTrue(availabilityService.isUsernameAvailable("bob"));
+        verify(userRepository).findExistingUsernames(List.of("heidi"));
+        assertEquals(1, availabilityService.stats().getDefinitelyAbsent());
+    }
+
+    private static CacheInvalidationBus bus(LoopbackInvalidationTransport.Hub hub) {
+        return new CacheInvalidationBus(new LoopbackInvalidationTransport(hub), Duration.ofHours(1), 512);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.hello_spring.services;
+
+import com.example.hello_spring.entities.User;
+import com.example.hello_spring.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UserLookupService to verify read-through and negative caching
+ */
+class UserLookupServiceTest {
+
+    private UserRepository userRepository;
+    private UserLookupService lookupService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        lookupService = new UserLookupService(userRepository, new CacheService(), mock(SecondLevelCacheService.class));
+        ReflectionTestUtils.setField(lookupService, "negativeTtlSeconds", 30L);
+    }
+
+    @Test
+    void testRepeatedLookupHitsDatabaseOnce() {
+        User user = new User("cached", "cached@example.com");
+        when(userRepository.findByUsername("cached")).thenReturn(Optional.of(user));
+
+        assertSame(user, lookupService.findByUsername("cached").orElseThrow());
+        assertSame(user, lookupService.findByUsername("cached").orElseThrow());
+        assertTrue(lookupService.existsByUsername("cached"));
+
+        verify(userRepository, times(1)).findByUsername("cached");
+    }
+
+    @Test
+    void testMissIsNegativeCached() {
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        assertFalse(lookupService.findByUsername("ghost").isPresent());
+        assertFalse(lookupService.existsByUsername("ghost"));
+
+        verify(userRepository, times(1)).findByUsername("ghost");
+    }
+
+    @Test
+    void testExpiredMissGoesBackToDatabase() {
+        ReflectionTestUtils.setField(lookupService, "negativeTtlSeconds", 0L);
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        lookupService.findByUsername("ghost");
+        lookupService.findByUsername("ghost");
+
+        verify(userRepository, times(2)).findByUsername("ghost");
+    }
+
+    @Test
+    void testSaveReplacesCachedMiss() {
+        when(userRepository.findByUsername("newbie")).thenReturn(Optional.empty());
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertFalse(lookupService.existsByUsername("newbie"));
+        User saved = lookupService.save(new User("newbie", "newbie@example.com"));
+
+        assertSame(saved, lookupService.findByUsername("newbie").orElseThrow());
+        verify(userRepository, times(1)).findByUsername("newbie");
+    }
+
+    @Test
+    void testEmailLookupsAreNotCached() {
+        User first = new User("first", "shared@example.com");
+        when(userRepository.findFirstByEmailOrderByIdAsc("shared@example.com")).thenReturn(Optional.of(first));
+
+        assertSame(first, lookupService.findByEmail("shared@example.com").orElseThrow());
+        assertSame(first, lookupService.findByEmail("shared@example.com").orElseThrow());
+
+        verify(userRepository, times(2)).findFirstByEmailOrderByIdAsc("shared@example.com");
+        verify(userRepository, never()).findByEmail(any());
+    }
+
+    @Test
+    void testEvictDropsCachedMiss() {
+        when(userRepository.findByUsername("imported")).thenReturn(Optional.empty());
+
+        lookupService.findByUsername("imported");
+        lookupService.evict("imported");
+        lookupService.findByUsername("imported");
+
+        verify(userRepository, times(2)).findByUsername("imported");
+    }
+
+    @Test
+    void testPeerWriteEvictsSecondLevelCache() throws Exception {
+        LoopbackInvalidationTransport.Hub hub = new LoopbackInvalidationTransport.Hub();
+        try (CacheInvalidationBus busA = bus(hub); CacheInvalidationBus busB = bus(hub)) {
+            busA.start();
+            busB.start();
+            UserLookupService nodeA = node(busA, mock(SecondLevelCacheService.class));
+            SecondLevelCacheService secondLevelB = mock(SecondLevelCacheService.class);
+            UserLookupService nodeB = node(busB, secondLevelB);
+            when(userRepository.findByUsername("moved")).thenReturn(Optional.empty());
+            when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            assertFalse(nodeB.existsByUsername("moved"));
+            nodeA.save(new User("moved", "moved@example.com"));
+            busA.flush();
+
+            verify(secondLevelB).evictUsers();
+            assertFalse(nodeB.existsByUsername("moved"));
+            verify(userRepository, times(2)).findByUsername("moved");
+        }
+    }
+
+    @Test
+    void testReadsDoNotEvictPeers() throws Exception {
+        LoopbackInvalidationTransport.Hub hub = new LoopbackInvalidationTransport.Hub();
+        try (CacheInvalidationBus busA = bus(hub); CacheInvalidationBus busB = bus(hub)) {
+            busA.start();
+            busB.start();
+            UserLookupService nodeA = node(busA, mock(SecondLevelCacheService.class));
+            ReflectionTestUtils.setField(nodeA, "negativeTtlSeconds", 0L);
+            SecondLevelCacheService secondLevelB = mock(SecondLevelCacheService.class);
+            node(busB, secondLevelB);
+            when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+            // The second lookup drops the expired miss
+            nodeA.findByUsername("ghost");
+            nodeA.findByUsername("ghost");
+            busA.flush();
+
+            verify(userRepository, times(2)).findByUsername("ghost");
+            assertEquals(0, busA.stats().getPublished());
+            verify(secondLevelB, never()).evictUsers();
+        }
+    }
+
+    @Test
+    void testLookupIsCountedOnceInCacheStats() {
+        CacheService cacheService = new CacheService();
+        UserLookupService service = new UserLookupService(userRepository, cacheService,
+            mock(SecondLevelCacheService.class));
+        ReflectionTestUtils.setField(service, "negativeTtlSeconds", 30L);
+        when(userRepository.findByUsername("counted")).thenReturn(Optional.empty());
+
+        service.findByUsername("counted");
+        service.findByUsername("counted");
+
+        assertEquals(1, cacheService.stats().missCount());
+        assertEquals(1, cacheService.stats().hitCount());
+    }
+
+    private UserLookupService node(CacheInvalidationBus bus, SecondLevelCacheService secondLevelCacheService) {
+        CacheService cacheService = new CacheService();
+        cacheService.setInvalidationBus(bus);
+        UserLookupService node = new UserLookupService(userRepository, cacheService, secondLevelCacheService);
+        node.setInvalidationBus(bus);
+        ReflectionTestUtils.setField(node, "negativeTtlSeconds", 30L);
+        return node;
+    }
+
+    private static CacheInvalidationBus bus(LoopbackInvalidationTransport.Hub hub) {
+        return new CacheInvalidationBus(new LoopbackInvalidationTransport(hub), Duration.ofHours(1), 512);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.hello_spring.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for UserVersionService: which writes invalidate which ETags
+ */
+class UserVersionServiceTest {
+
+    @Test
+    void testInsertChangesCollectionAndThatUsersETag() {
+        UserVersionService versions = new UserVersionService();
+        String collection = versions.collectionETag();
+        String alice = versions.userETag("alice");
+        String bob = versions.userETag("bob");
+        assertTrue(collection.startsWith("\"") && collection.endsWith("\""));
+
+        versions.userInserted("alice");
+
+        assertNotEquals(collection, versions.collectionETag());
+        assertNotEquals(alice, versions.userETag("alice"));
+        assertEquals(bob, versions.userETag("bob"));
+        assertEquals(versions.collectionETag(), versions.collectionETag());
+    }
+
+    @Test
+    void testUpdateChangesEveryUsersETag() {
+        UserVersionService versions = new UserVersionService();
+        String alice = versions.userETag("alice");
+        String bob = versions.userETag("bob");
+
+        versions.userChanged("alice");
+
+        assertNotEquals(alice, versions.userETag("alice"));
+        assertNotEquals(bob, versions.userETag("bob"));
+    }
+
+    @Test
+    void testWritesOnAPeerChangeThisNodesETags() throws Exception {
+        LoopbackInvalidationTransport.Hub hub = new LoopbackInvalidationTransport.Hub();
+        try (CacheInvalidationBus busA = bus(hub); CacheInvalidationBus busB = bus(hub)) {
+            busA.start();
+            busB.start();
+            UserVersionService nodeA = new UserVersionService();
+            nodeA.setInvalidationBus(busA);
+            UserVersionService nodeB = new UserVersionService();
+            nodeB.setInvalidationBus(busB);
+            String collection = nodeB.collectionETag();
+            String alice = nodeB.userETag("alice");
+            String bob = nodeB.userETag("bob");
+
+            nodeA.userInserted("alice");
+            busA.flush();
+            assertNotEquals(collection, nodeB.collectionETag());
+            assertNotEquals(alice, nodeB.userETag("alice"));
+            assertEquals(bob, nodeB.userETag("bob"));
+
+            bob = nodeB.userETag("bob");
+            nodeA.userChanged("carol");
+            busA.flush();
+            assertNotEquals(bob, nodeB.userETag("bob"));
+
+            // Bumps received from a peer are not sent back
+            busB.flush();
+            assertEquals(0, busB.stats().getMessagesSent());
+        }
+    }
+
+    private static CacheInvalidationBus bus(LoopbackInvalidationTransport.Hub hub) {
+        return new CacheInvalidationBus(new LoopbackInvalidationTransport(hub), Duration.ofHours(1), 512);
+    }
+}
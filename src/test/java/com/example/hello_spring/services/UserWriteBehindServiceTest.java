@@ -0,0 +1,135 @@
+package com.example.hello_spring.services;
+
+import com.example.hello_spring.entities.User;
+import com.example.hello_spring.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UserWriteBehindService to verify batching, per-user conflicts and backpressure
+ */
+class UserWriteBehindServiceTest {
+
+    private UserRepository userRepository;
+    private UserWriteBehindService writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findExistingUsernames(any())).thenReturn(List.of());
+        when(userRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            List<User> saved = new ArrayList<>();
+            invocation.<Iterable<User>>getArgument(0).forEach(saved::add);
+            return saved;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (writeBehind != null) {
+            writeBehind.stop();
+        }
+    }
+
+    @Test
+    void testConcurrentSubmitsShareOneBatch() throws Exception {
+        writeBehind = create(10, 3, Duration.ofSeconds(5));
+        writeBehind.start();
+
+        // The batch fills up long before the interval runs out
+        List<CompletableFuture<User>> futures = List.of(
+            writeBehind.submit("a", "a@example.com"),
+            writeBehind.submit("b", "b@example.com"),
+            writeBehind.submit("c", "c@example.com"));
+
+        assertEquals("b", futures.get(1).get(5, TimeUnit.SECONDS).getUsername());
+        verify(userRepository, times(1)).saveAll(anyIterable());
+        assertEquals(1, writeBehind.stats().getBatches());
+        assertEquals(3, writeBehind.stats().getInserted());
+    }
+
+    @Test
+    void testConflictsFailOnlyTheirOwnRequest() {
+        writeBehind = create(10, 10, Duration.ofMillis(5));
+        when(userRepository.findExistingUsernames(any())).thenReturn(List.of("taken"));
+        List<UserWriteBehindService.PendingUser> batch = List.of(
+            new UserWriteBehindService.PendingUser("taken", "taken@example.com"),
+            new UserWriteBehindService.PendingUser("fresh", "fresh@example.com"),
+            new UserWriteBehindService.PendingUser("fresh", "again@example.com"));
+
+        writeBehind.flush(batch);
+
+        assertConflict(batch.get(0).future());
+        assertEquals("fresh@example.com", batch.get(1).future().join().getEmail());
+        assertConflict(batch.get(2).future());
+        assertEquals(2, writeBehind.stats().getConflicts());
+    }
+
+    @Test
+    void testFullQueueRejects() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.findExistingUsernames(any())).thenAnswer(invocation -> {
+            flushing.countDown();
+            release.await();
+            return List.of();
+        });
+        writeBehind = create(1, 1, Duration.ofMillis(5));
+        writeBehind.start();
+
+        // The flusher is stuck on the first user and the second fills the queue
+        CompletableFuture<User> first = writeBehind.submit("a", "a@example.com");
+        assertTrue(flushing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<User> second = writeBehind.submit("b", "b@example.com");
+        assertThrows(RejectedExecutionException.class, () -> writeBehind.submit("c", "c@example.com"));
+        assertEquals(1, writeBehind.stats().getRejected());
+
+        release.countDown();
+        assertEquals("a", first.get(5, TimeUnit.SECONDS).getUsername());
+        assertEquals("b", second.get(5, TimeUnit.SECONDS).getUsername());
+    }
+
+    @Test
+    void testStopFailsUsersStillQueued() throws Exception {
+        writeBehind = create(10, 1, Duration.ofMillis(5));
+        // Never started: nothing takes the queued user
+        ReflectionTestUtils.setField(writeBehind, "running", true);
+        CompletableFuture<User> queued = writeBehind.submit("late", "late@example.com");
+
+        writeBehind.stop();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals(1, writeBehind.stats().getFailed());
+        assertEquals(0, writeBehind.stats().getQueued());
+    }
+
+    private UserWriteBehindService create(int capacity, int batchSize, Duration flushInterval) {
+        return new UserWriteBehindService(userRepository, new UserLookupService(userRepository, new CacheService(),
+            mock(SecondLevelCacheService.class)),
+            mock(PlatformTransactionManager.class), capacity, batchSize, flushInterval, Duration.ofMillis(10));
+    }
+
+    private static void assertConflict(CompletableFuture<User> future) {
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(DuplicateKeyException.class, e.getCause());
+    }
+}